@@ -0,0 +1,285 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The actions a prevention strategy takes against the current system state,
+ * as produced by {@link DeadlockPrevention#plan} and carried out by
+ * {@link DeadlockPrevention#execute}.
+ *
+ * Actions are kept in parallel primitive arrays (kind, process, resource and
+ * a value whose meaning depends on the kind), so planning allocates a few
+ * arrays rather than an object or a line of text per action. Actions for the
+ * same process are adjacent. Nothing is formatted until toString() is called,
+ * and the text is cached, so callers that never show a plan never pay for it.
+ */
+public final class ActionPlan {
+    
+    /**
+     * What an action does.
+     */
+    public enum Kind {
+        /** Take units of a resource from the process and queue it to win them back. Value: units. */
+        PREEMPT,
+        /** Abort and restart the process (wait-die or wound-wait). Value: its timestamp. */
+        ABORT,
+        /** Terminate the process outright. */
+        TERMINATE,
+        /** Withdraw the process's request for a resource. Value: nanoseconds it has waited. */
+        WITHDRAW,
+        /** Give up the resources ranked above the one the process waits for, then re-acquire them in order. */
+        REORDER,
+        /**
+         * Nothing to execute; the process is left waiting. Value: nanoseconds
+         * until it times out for TIMEOUT plans (-1 if unknown), otherwise the
+         * units requested. A resource of -1 stands for the whole remaining need.
+         */
+        WAIT
+    }
+    
+    private static final Kind[] KINDS = Kind.values();
+    
+    private final DeadlockPrevention.PreventionStrategy strategy;
+    private final long timeoutNanos;
+    private byte[] kinds = new byte[8];
+    private int[] processes = new int[8];
+    private int[] resources = new int[8];
+    private long[] values = new long[8];
+    private int size;
+    private String rendered;
+    
+    ActionPlan(DeadlockPrevention.PreventionStrategy strategy) {
+        this(strategy, 0);
+    }
+    
+    ActionPlan(DeadlockPrevention.PreventionStrategy strategy, long timeoutNanos) {
+        this.strategy = strategy;
+        this.timeoutNanos = timeoutNanos;
+    }
+    
+    void preempt(int processId, int resourceId, int units) {
+        add(Kind.PREEMPT, processId, resourceId, units);
+    }
+    
+    void abort(int processId, long timestamp) {
+        add(Kind.ABORT, processId, -1, timestamp);
+    }
+    
+    void terminate(int processId) {
+        add(Kind.TERMINATE, processId, -1, 0);
+    }
+    
+    void withdraw(int processId, int resourceId, long waitedNanos) {
+        add(Kind.WITHDRAW, processId, resourceId, waitedNanos);
+    }
+    
+    void reorder(int processId, int resourceId) {
+        add(Kind.REORDER, processId, resourceId, 0);
+    }
+    
+    void wait(int processId, int resourceId, long value) {
+        add(Kind.WAIT, processId, resourceId, value);
+    }
+    
+    private void add(Kind kind, int processId, int resourceId, long value) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            processes = Arrays.copyOf(processes, capacity);
+            resources = Arrays.copyOf(resources, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        processes[size] = processId;
+        resources[size] = resourceId;
+        values[size] = value;
+        size++;
+        rendered = null;
+    }
+    
+    public DeadlockPrevention.PreventionStrategy getStrategy() {
+        return strategy;
+    }
+    
+    /**
+     * Gets the request timeout a TIMEOUT plan was made with.
+     *
+     * @return The timeout in nanoseconds, or 0 for other strategies
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public Kind getKind(int index) {
+        return KINDS[kinds[checkIndex(index)]];
+    }
+    
+    public int getProcessId(int index) {
+        return processes[checkIndex(index)];
+    }
+    
+    /**
+     * Gets the resource an action concerns.
+     *
+     * @param index The action
+     * @return The resource id, or -1 if the action concerns the whole process
+     */
+    public int getResourceId(int index) {
+        return resources[checkIndex(index)];
+    }
+    
+    /**
+     * Gets the kind-specific value of an action; see {@link Kind}.
+     */
+    public long getValue(int index) {
+        return values[checkIndex(index)];
+    }
+    
+    /**
+     * Counts the actions of one kind.
+     */
+    public int count(Kind kind) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == kind.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Action " + index + " of " + size);
+        }
+        return index;
+    }
+    
+    /**
+     * Describes the plan for display. The text is built on the first call
+     * and cached.
+     */
+    @Override
+    public String toString() {
+        if (rendered == null) {
+            rendered = render();
+        }
+        return rendered;
+    }
+    
+    private String render() {
+        StringBuilder text = new StringBuilder();
+        switch (strategy) {
+            case RESOURCE_ORDERING:
+                text.append("Applied Resource Ordering Strategy: enforcing the resource order for new requests.");
+                if (size == 0) {
+                    return text.append(" No process is waiting out of order.").toString();
+                }
+                text.append('\n');
+                for (int i = 0; i < size; i = runEnd(i)) {
+                    text.append("Process P").append(processes[i]).append(": Waiting out of order for: ");
+                    for (int k = i; k < runEnd(i); k++) {
+                        text.append('R').append(resources[k]).append(' ');
+                    }
+                    text.append("- re-acquiring in rank order\n");
+                }
+                break;
+            case PREEMPTION:
+                if (size == 0) {
+                    return "No deadlock detected, no preemption needed.";
+                }
+                text.append("Applied Preemption Strategy:\n");
+                for (int i = 0; i < size; i++) {
+                    if (kinds[i] == Kind.TERMINATE.ordinal()) {
+                        text.append('P').append(processes[i]).append(": terminated (preemption limit reached)\n");
+                    } else {
+                        text.append('P').append(processes[i]).append(": preempted R").append(resources[i])
+                            .append(" (").append(values[i]).append(" units)\n");
+                    }
+                }
+                break;
+            case TIMEOUT:
+                text.append("Applied Timeout Strategy: requests time out after ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(timeoutNanos)).append(" ms");
+                if (size == 0) {
+                    return text.append(". No requests are waiting.").toString();
+                }
+                text.append(", ").append(count(Kind.WITHDRAW)).append(" withdrawn.\n");
+                for (int i = 0; i < size; i = runEnd(i)) {
+                    text.append("Process P").append(processes[i]).append(": ");
+                    for (int k = i; k < runEnd(i); k++) {
+                        if (kinds[k] == Kind.WITHDRAW.ordinal()) {
+                            text.append("Timeout request for R").append(resources[k]).append(" after ")
+                                .append(TimeUnit.NANOSECONDS.toMillis(values[k])).append(" ms ");
+                        } else if (values[k] < 0) {
+                            text.append('R').append(resources[k]).append(" (waiting since before the last history step) ");
+                        } else {
+                            text.append('R').append(resources[k]).append(" times out in ")
+                                .append(TimeUnit.NANOSECONDS.toMillis(values[k])).append(" ms ");
+                        }
+                    }
+                    text.append('\n');
+                }
+                break;
+            case ALL_OR_NOTHING:
+                text.append("Applied All-or-Nothing Strategy:\n");
+                if (size == 0) {
+                    return text.append("Every process can acquire all of its remaining need at once.\n").toString();
+                }
+                for (int i = 0; i < size; i = runEnd(i)) {
+                    text.append("Process P").append(processes[i]).append(':');
+                    boolean holdsAndWaits = false;
+                    for (int k = i; k < runEnd(i); k++) {
+                        if (resources[k] < 0) {
+                            text.append(" Cannot acquire all needed resources at once - would need to wait.");
+                        } else {
+                            if (!holdsAndWaits) {
+                                text.append(" Holds resources while waiting for:");
+                                holdsAndWaits = true;
+                            }
+                            text.append(" R").append(resources[k]);
+                        }
+                    }
+                    text.append('\n');
+                }
+                break;
+            case WAIT_DIE:
+            case WOUND_WAIT:
+                boolean waitDie = strategy == DeadlockPrevention.PreventionStrategy.WAIT_DIE;
+                String name = waitDie ? "Wait-Die" : "Wound-Wait";
+                text.append("Applied ").append(name).append(" Strategy:\n");
+                if (size == 0) {
+                    return text.append("No conflicting waits; enforcing ").append(name)
+                               .append(" for new requests.\n").toString();
+                }
+                for (int i = 0; i < size; i++) {
+                    text.append("Process P").append(processes[i]).append(" (timestamp ").append(values[i]).append("): ")
+                        .append(waitDie ? "died (was waiting for an older process)"
+                                        : "wounded (an older process was waiting for it)")
+                        .append(" and restarted\n");
+                }
+                break;
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Gets the index just past the run of actions for the same process as the given one.
+     */
+    private int runEnd(int from) {
+        int end = from + 1;
+        while (end < size && processes[end] == processes[from]) {
+            end++;
+        }
+        return end;
+    }
+}
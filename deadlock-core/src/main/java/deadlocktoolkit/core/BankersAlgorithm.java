@@ -36,7 +36,9 @@ public class BankersAlgorithm {
     
     public void setMaxDemand(int processId, int[] maxDemand) {
         System.arraycopy(maxDemand, 0, maxMatrix[processId], 0, numResources);
-        updateNeedMatrix();
+        for (int j = 0; j < numResources; j++) {
+            needMatrix[processId][j] = maxMatrix[processId][j] - allocationMatrix[processId][j];
+        }
     }
     
     public boolean isSafeState(int processId, int resourceId, int units) {
@@ -50,17 +52,52 @@ public class BankersAlgorithm {
             return false;
         }
         
-        // Try to allocate resources
+        // Try to allocate resources (only one need entry changes)
         availableResources[resourceId] -= units;
         allocationMatrix[processId][resourceId] += units;
-        updateNeedMatrix();
+        needMatrix[processId][resourceId] -= units;
         
         boolean isSafe = checkSafeState();
         
         // Rollback changes
         availableResources[resourceId] += units;
         allocationMatrix[processId][resourceId] -= units;
-        updateNeedMatrix();
+        needMatrix[processId][resourceId] += units;
+        
+        return isSafe;
+    }
+    
+    /**
+     * Checks whether granting a whole request vector at once leaves the system
+     * in a safe state. Runs a single safety check however many resources the
+     * request covers.
+     * 
+     * @param processId The requesting process
+     * @param request Units requested of each resource
+     * @return true if every unit is within the maximum claim and available,
+     *         and the resulting state is safe
+     */
+    public boolean isSafeState(int processId, int[] request) {
+        for (int j = 0; j < numResources; j++) {
+            if (allocationMatrix[processId][j] + request[j] > maxMatrix[processId][j]
+                    || request[j] > availableResources[j]) {
+                return false;
+            }
+        }
+        
+        for (int j = 0; j < numResources; j++) {
+            availableResources[j] -= request[j];
+            allocationMatrix[processId][j] += request[j];
+            needMatrix[processId][j] -= request[j];
+        }
+        
+        boolean isSafe = checkSafeState();
+        
+        for (int j = 0; j < numResources; j++) {
+            availableResources[j] += request[j];
+            allocationMatrix[processId][j] -= request[j];
+            needMatrix[processId][j] += request[j];
+        }
         
         return isSafe;
     }
@@ -117,13 +154,13 @@ public class BankersAlgorithm {
     public void allocateResource(int processId, int resourceId, int units) {
         allocationMatrix[processId][resourceId] += units;
         availableResources[resourceId] -= units;
-        updateNeedMatrix();
+        needMatrix[processId][resourceId] = maxMatrix[processId][resourceId] - allocationMatrix[processId][resourceId];
     }
     
     public void releaseResource(int processId, int resourceId, int units) {
         allocationMatrix[processId][resourceId] -= units;
         availableResources[resourceId] += units;
-        updateNeedMatrix();
+        needMatrix[processId][resourceId] = maxMatrix[processId][resourceId] - allocationMatrix[processId][resourceId];
     }
     
     public int[][] getAllocationMatrix() {
@@ -0,0 +1,63 @@
+package deadlocktoolkit.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of {@link DeadlockEngine#applyBatch(java.util.List, boolean)}.
+ */
+public class BatchResult {
+    private final boolean[] results;
+    private final int appliedCount;
+    private final int deadlockIndex;
+    private final List<Integer> deadlockedProcesses;
+    
+    BatchResult(boolean[] results, int appliedCount, int deadlockIndex, List<Integer> deadlockedProcesses) {
+        this.results = results;
+        this.appliedCount = appliedCount;
+        this.deadlockIndex = deadlockIndex;
+        this.deadlockedProcesses = new ArrayList<>(deadlockedProcesses);
+    }
+    
+    /**
+     * Gets whether the command at the given position took effect. Requests
+     * report whether they were granted; commands after an early stop report false.
+     * 
+     * @param index The position of the command in the batch
+     * @return true if the command was applied successfully
+     */
+    public boolean succeeded(int index) {
+        return results[index];
+    }
+    
+    public int size() {
+        return results.length;
+    }
+    
+    /**
+     * Gets the number of commands that were applied before the batch ended.
+     * 
+     * @return The number of applied commands
+     */
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+    
+    public boolean isDeadlocked() {
+        return !deadlockedProcesses.isEmpty();
+    }
+    
+    /**
+     * Gets the position of the command that formed a deadlock when the batch
+     * was asked to stop at the first one.
+     * 
+     * @return The index of that command, or -1
+     */
+    public int getDeadlockIndex() {
+        return deadlockIndex;
+    }
+    
+    public List<Integer> getDeadlockedProcesses() {
+        return deadlockedProcesses;
+    }
+}
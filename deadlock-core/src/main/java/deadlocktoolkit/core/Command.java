@@ -0,0 +1,126 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+
+/**
+ * A single engine operation, used to submit work in batches through
+ * {@link DeadlockEngine#applyBatch(java.util.List, boolean)}.
+ */
+public class Command {
+    
+    public enum Type {
+        REQUEST,
+        RELEASE,
+        SET_MAX,
+        TERMINATE,
+        /** Take units from a process and queue it to win them back. */
+        PREEMPT,
+        /** Abort and restart a process under wait-die or wound-wait. */
+        ABORT,
+        /** Withdraw a process's outstanding request for a resource. */
+        WITHDRAW,
+        /** Make a process give up resources ranked above the one it waits for. */
+        REORDER
+    }
+    
+    private final Type type;
+    private final int processId;
+    private final int resourceId;
+    private final int units;
+    private final int[] maxDemand;
+    
+    private Command(Type type, int processId, int resourceId, int units, int[] maxDemand) {
+        this.type = type;
+        this.processId = processId;
+        this.resourceId = resourceId;
+        this.units = units;
+        this.maxDemand = maxDemand;
+    }
+    
+    public static Command request(int processId, int resourceId, int units) {
+        return new Command(Type.REQUEST, processId, resourceId, units, null);
+    }
+    
+    public static Command release(int processId, int resourceId, int units) {
+        return new Command(Type.RELEASE, processId, resourceId, units, null);
+    }
+    
+    public static Command setMax(int processId, int[] maxDemand) {
+        return new Command(Type.SET_MAX, processId, -1, 0, maxDemand.clone());
+    }
+    
+    public static Command terminate(int processId) {
+        return new Command(Type.TERMINATE, processId, -1, 0, null);
+    }
+    
+    public static Command preempt(int processId, int resourceId, int units) {
+        return new Command(Type.PREEMPT, processId, resourceId, units, null);
+    }
+    
+    /**
+     * Creates an abort.
+     * 
+     * @param processId The process to abort
+     * @param wounded True if an older process wounded it, false if it died
+     */
+    public static Command abort(int processId, boolean wounded) {
+        return new Command(Type.ABORT, processId, -1, wounded ? 1 : 0, null);
+    }
+    
+    public static Command withdraw(int processId, int resourceId) {
+        return new Command(Type.WITHDRAW, processId, resourceId, 0, null);
+    }
+    
+    public static Command reorder(int processId, int resourceId) {
+        return new Command(Type.REORDER, processId, resourceId, 0, null);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public int getProcessId() {
+        return processId;
+    }
+    
+    public int getResourceId() {
+        return resourceId;
+    }
+    
+    public int getUnits() {
+        return units;
+    }
+    
+    public int[] getMaxDemand() {
+        return maxDemand;
+    }
+    
+    /**
+     * Tells whether an ABORT command is a wound rather than a death.
+     */
+    public boolean isWound() {
+        return type == Type.ABORT && units != 0;
+    }
+    
+    @Override
+    public String toString() {
+        switch (type) {
+            case REQUEST:
+                return "REQUEST P" + processId + " R" + resourceId + " x" + units;
+            case RELEASE:
+                return "RELEASE P" + processId + " R" + resourceId + " x" + units;
+            case SET_MAX:
+                return "SET_MAX P" + processId + " " + Arrays.toString(maxDemand);
+            case PREEMPT:
+                return "PREEMPT P" + processId + " R" + resourceId + " x" + units;
+            case ABORT:
+                return (isWound() ? "WOUND P" : "DIE P") + processId;
+            case WITHDRAW:
+                return "WITHDRAW P" + processId + " R" + resourceId;
+            case REORDER:
+                return "REORDER P" + processId + " R" + resourceId;
+            default:
+                return "TERMINATE P" + processId;
+        }
+    }
+}
@@ -0,0 +1,2293 @@
+package deadlocktoolkit.core;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class DeadlockEngine {
+    private ResourceAllocationGraph rag;
+    private BankersAlgorithm bankersAlg;
+    private DeadlockRecovery recovery;
+    private DeadlockPrevention prevention;
+    private StateHistory stateHistory;
+    private int currentStateIndex;
+    private boolean historyRecording = true;
+    private PerformanceTracker performanceTracker;
+    private static final long MONITORING_INTERVAL_MS = 1000;
+    public static final int DEFAULT_MAX_PREEMPTIONS = 3;
+    public static final double DEFAULT_VICTIM_AGING_WEIGHT = 1.0;
+    public static final long TIMER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // One in this many runs of each hot operation is timed
+    public static final int DEFAULT_SAMPLING_PERIOD = 128;
+    // Timestamp of a process that is not in a transaction; it ranks as the youngest
+    public static final long NO_TIMESTAMP = Long.MAX_VALUE;
+    
+    private ScheduledExecutorService monitoringScheduler;
+    private ScheduledFuture<?> monitoringTask;
+    private Executor monitoringExecutor;
+    private DeadlockEventDispatcher listenerDispatcher;
+    private ResourceWaitQueues waitQueues;
+    private ResourceUsage resourceUsage;
+    private ResourceWaitQueues.FairnessPolicy fairnessPolicy = ResourceWaitQueues.FairnessPolicy.FIFO;
+    private int[] processPriority;
+    private int[] grantCount;
+    private int[] preemptionCount;
+    private long totalPreemptions;
+    private OperationLog operationLog;
+    private int[] rollbackCount;
+    private long totalRollbacks;
+    private int maxPreemptions = DEFAULT_MAX_PREEMPTIONS;
+    private DeadlockRecovery.RecoveryStrategy recoveryStrategy = DeadlockRecovery.RecoveryStrategy.TERMINATION;
+    private VictimCostModel victimCostModel = VictimCostModel.defaultModel();
+    private double victimAgingWeight = DEFAULT_VICTIM_AGING_WEIGHT;
+    private DeadlockPrevention.OrderingEnforcement orderingEnforcement = DeadlockPrevention.OrderingEnforcement.OFF;
+    private int[] resourceRank;
+    private int[] rankedResource;
+    private int[] highestHeldRank;
+    private boolean deadlockDetectionEnabled = true;
+    private boolean bankersAvoidance = true;
+    private boolean instrumentation = true;
+    private int samplingPeriod = DEFAULT_SAMPLING_PERIOD;
+    // Runs of each operation left until the next timed one
+    private final int[] sampleCountdown = new int[PerformanceTracker.Operation.values().length];
+    private DeadlockPrevention.TimestampScheme timestampScheme = DeadlockPrevention.TimestampScheme.OFF;
+    private long nextTimestamp;
+    private long[] processTimestamp;
+    private int[] abortCount;
+    private long totalDies;
+    private long totalWounds;
+    private LongSupplier nanoClock = System::nanoTime;
+    private long requestTimeoutNanos;
+    private long leaseNanos;
+    private TimingWheel<ResourceWaitQueues.PendingRequest> requestTimers;
+    private TimingWheel<Lease> leaseTimers;
+    private Lease[][] leases;
+    private long timedOutRequests;
+    private long expiredLeases;
+    private boolean resolveUntilClear;
+    private boolean resolving;
+    // Processes that gained a wait-for edge (as waiter or as holder) since the last reset
+    private boolean[] touched;
+    private int[] touchedProcesses;
+    private int touchedCount;
+    private final List<ResourceWaitQueues.PendingRequest> admittedWaiters = new ArrayList<>();
+    private final List<ResourceWaitQueues.PendingRequest> abandonedWaiters = new ArrayList<>();
+    
+    public DeadlockEngine() {
+        this(StateHistory.DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Creates an engine that keeps at most the given number of history states
+     * in memory; older states are spilled to disk.
+     * 
+     * @param historyCapacity The number of states held in memory
+     */
+    public DeadlockEngine(int historyCapacity) {
+        stateHistory = new StateHistory(historyCapacity);
+        currentStateIndex = -1;
+        performanceTracker = new PerformanceTracker();
+        listenerDispatcher = new DeadlockEventDispatcher();
+        performanceTracker.setListenerDispatcher(listenerDispatcher);
+    }
+    
+    public void initialize(int numProcesses, int numResources, int[] availableResources) {
+        rag = new ResourceAllocationGraph(numProcesses, numResources);
+        rag.setClock(nanoClock);
+        bankersAlg = new BankersAlgorithm(numProcesses, numResources, availableResources);
+        recovery = new DeadlockRecovery(this);
+        prevention = new DeadlockPrevention(this);
+        processPriority = new int[numProcesses];
+        grantCount = new int[numProcesses];
+        preemptionCount = new int[numProcesses];
+        totalPreemptions = 0;
+        operationLog = new OperationLog(numProcesses);
+        rollbackCount = new int[numProcesses];
+        totalRollbacks = 0;
+        touched = new boolean[numProcesses];
+        touchedProcesses = new int[numProcesses];
+        touchedCount = 0;
+        resourceRank = new int[numResources];
+        rankedResource = new int[numResources];
+        for (int j = 0; j < numResources; j++) {
+            resourceRank[j] = j;
+            rankedResource[j] = j;
+        }
+        highestHeldRank = new int[numProcesses];
+        Arrays.fill(highestHeldRank, -1);
+        
+        // Timestamps are handed out as transactions start and keep increasing across systems
+        processTimestamp = new long[numProcesses];
+        Arrays.fill(processTimestamp, NO_TIMESTAMP);
+        abortCount = new int[numProcesses];
+        totalDies = 0;
+        totalWounds = 0;
+        
+        // Requests parked against the previous system can never be granted;
+        // their timers belong to the old wheel
+        if (waitQueues != null) {
+            for (ResourceWaitQueues.PendingRequest request : waitQueues.clear()) {
+                request.timer = -1;
+                abandonedWaiters.add(request);
+            }
+        }
+        long now = nanoClock.getAsLong();
+        requestTimers = new TimingWheel<>(TIMER_TICK_NANOS, now);
+        leaseTimers = new TimingWheel<>(TIMER_TICK_NANOS, now);
+        leases = new Lease[numProcesses][numResources];
+        timedOutRequests = 0;
+        expiredLeases = 0;
+        waitQueues = new ResourceWaitQueues(numResources, fairnessPolicy);
+        resourceUsage = new ResourceUsage(availableResources,
+                                          j -> waitQueues.getQueueDepth(j) + waitQueues.getBundleDepth(j),
+                                          () -> nanoClock.getAsLong());
+        
+        // Reset performance tracker
+        performanceTracker.resetMetrics();
+        performanceTracker.setResourceUsage(resourceUsage);
+        
+        // Record initial state
+        recordState();
+        completeWaiters();
+        
+        // Start monitoring if it was active
+        if (performanceTracker.isMonitoringActive()) {
+            startMonitoring();
+        }
+    }
+    
+    public boolean requestResource(int processId, int resourceId, int units) {
+        if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REJECT && isOutOfOrder(processId, resourceId)) {
+            rejectOutOfOrder(processId, resourceId);
+            return false;
+        }
+        
+        // Check if request would be safe using Banker's Algorithm
+        if (!canGrant(processId, resourceId, units)) {
+            long abortsBefore = getTotalAborts();
+            if (timestampScheme == DeadlockPrevention.TimestampScheme.OFF
+                    || !resolveConflict(processId, resourceId)
+                    || !canGrant(processId, resourceId, units)) {
+                if (getTotalAborts() == abortsBefore) {
+                    recordAvoidance();
+                    resourceUsage.onContention(resourceId);
+                    performanceTracker.updateSystemStatus(bankersAvoidance
+                        ? "Request denied: Would lead to unsafe state"
+                        : "Request denied: Units not available");
+                    return false;
+                }
+                // Units freed by aborts go to the waiters
+                admitWaiters(0);
+                recordState();
+                completeWaiters();
+                return false;
+            }
+            
+            // Wounding younger holders made the request safe
+            grant(processId, resourceId, units);
+            admitWaiters(0);
+            checkAfterAllocation();
+            recordState();
+            completeWaiters();
+            return true;
+        }
+        
+        // Allocate the resource
+        grant(processId, resourceId, units);
+        
+        // Check for deadlock after allocation
+        checkAfterAllocation();
+        
+        // Record the new state
+        recordState();
+        return true;
+    }
+    
+    /**
+     * Requests resources without failing when the request can't be granted
+     * safely right now. Such requests are parked in the resource's wait queue
+     * and re-admitted when a release or termination makes them safe.
+     * 
+     * @param processId The requesting process
+     * @param resourceId The requested resource
+     * @param units The number of units requested
+     * @return A future that completes with true once granted, or false if the
+     *         request exceeds the process's maximum claim or is abandoned
+     */
+    public CompletableFuture<Boolean> requestResourceAsync(int processId, int resourceId, int units) {
+        if (!bankersAlg.isProcessActive(processId)
+                || bankersAlg.getAllocationMatrix()[processId][resourceId] + units > bankersAlg.getMaxMatrix()[processId][resourceId]) {
+            performanceTracker.updateSystemStatus("Request denied: Exceeds maximum claim");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REJECT && isOutOfOrder(processId, resourceId)) {
+            rejectOutOfOrder(processId, resourceId);
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        if (canGrant(processId, resourceId, units)) {
+            grant(processId, resourceId, units);
+            checkAfterAllocation();
+            recordState();
+            return CompletableFuture.completedFuture(true);
+        }
+        
+        if (timestampScheme != DeadlockPrevention.TimestampScheme.OFF) {
+            long abortsBefore = getTotalAborts();
+            if (!resolveConflict(processId, resourceId)) {
+                admitWaiters(0);
+                recordState();
+                completeWaiters();
+                return CompletableFuture.completedFuture(false);
+            }
+            if (getTotalAborts() > abortsBefore && canGrant(processId, resourceId, units)) {
+                grant(processId, resourceId, units);
+                admitWaiters(0);
+                checkAfterAllocation();
+                recordState();
+                completeWaiters();
+                return CompletableFuture.completedFuture(true);
+            }
+            admitWaiters(0);
+        }
+        
+        // Only a request that has to wait can take part in a circular wait
+        if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REORDER && isOutOfOrder(processId, resourceId)) {
+            CompletableFuture<Boolean> reordered = reorderAndWait(processId, resourceId, units);
+            completeWaiters();
+            return reordered;
+        }
+        
+        recordAvoidance();
+        ResourceWaitQueues.PendingRequest pending =
+            waitQueues.enqueue(processId, resourceId, units, processPriority[processId]);
+        resourceUsage.onContention(resourceId);
+        rag.addRequest(processId, resourceId, units);
+        scheduleTimeout(pending);
+        
+        if (!deadlockDetectionEnabled || !detectDeadlock()) {
+            performanceTracker.updateSystemStatus("Request queued: P" + processId + " waiting for R" + resourceId);
+        }
+        
+        recordState();
+        completeWaiters();
+        return pending.getFuture();
+    }
+    
+    /**
+     * Requests a whole vector of resources at once. The vector is granted
+     * atomically after a single Banker's safety check and adds one history
+     * step, however many resources it covers. If it can't be granted safely
+     * it is parked as one all-or-nothing request and granted only when every
+     * unit can be, so the process never holds part of the vector while
+     * waiting for the rest.
+     * 
+     * Under REORDER enforcement a process that would wait while holding
+     * resources ranked above the vector's lowest one gives them up and takes
+     * them back as part of the vector. Timestamp schemes check the holders of
+     * every requested resource.
+     * 
+     * @param processId The requesting process
+     * @param units Units requested of each resource
+     * @return A future that completes with true once the whole vector is
+     *         granted, or false if it exceeds the maximum claim, is rejected
+     *         or is abandoned
+     */
+    public CompletableFuture<Boolean> requestAll(int processId, int[] units) {
+        if (units.length != waitQueues.getNumResources()) {
+            throw new IllegalArgumentException("Expected " + waitQueues.getNumResources()
+                + " resources, got " + units.length);
+        }
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        int[] max = bankersAlg.getMaxMatrix()[processId];
+        boolean withinClaim = bankersAlg.isProcessActive(processId);
+        int lowest = -1;
+        for (int j = 0; j < units.length; j++) {
+            if (units[j] < 0) {
+                throw new IllegalArgumentException("Negative units of R" + j + ": " + units[j]);
+            }
+            if (units[j] > 0) {
+                withinClaim &= held[j] + units[j] <= max[j];
+                if (lowest < 0 || resourceRank[j] < resourceRank[lowest]) {
+                    lowest = j;
+                }
+            }
+        }
+        if (!withinClaim) {
+            performanceTracker.updateSystemStatus("Request denied: Exceeds maximum claim");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (lowest < 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REJECT && isOutOfOrder(processId, lowest)) {
+            rejectOutOfOrder(processId, lowest);
+            return CompletableFuture.completedFuture(false);
+        }
+        int[] request = units.clone();
+        
+        if (canGrant(processId, request)) {
+            grantAll(processId, request);
+            checkAfterAllocation();
+            recordState();
+            return CompletableFuture.completedFuture(true);
+        }
+        
+        if (timestampScheme != DeadlockPrevention.TimestampScheme.OFF) {
+            long abortsBefore = getTotalAborts();
+            for (int j = 0; j < request.length; j++) {
+                if (request[j] > 0 && !resolveConflict(processId, j)) {
+                    admitWaiters(0);
+                    recordState();
+                    completeWaiters();
+                    return CompletableFuture.completedFuture(false);
+                }
+            }
+            if (getTotalAborts() > abortsBefore && canGrant(processId, request)) {
+                grantAll(processId, request);
+                admitWaiters(0);
+                checkAfterAllocation();
+                recordState();
+                completeWaiters();
+                return CompletableFuture.completedFuture(true);
+            }
+            admitWaiters(0);
+        }
+        
+        if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REORDER && isOutOfOrder(processId, lowest)) {
+            int released = 0;
+            for (int rank = resourceRank[lowest] + 1; rank < rankedResource.length; rank++) {
+                int j = rankedResource[rank];
+                if (held[j] > 0) {
+                    request[j] += held[j];
+                    release(processId, j, held[j]);
+                    released++;
+                }
+            }
+            performanceTracker.recordDeadlockPrevention("Resource Ordering");
+            performanceTracker.updateSystemStatus("Reordered: P" + processId + " released " + released
+                + " resources ranked above R" + lowest);
+            admitWaiters(0);
+            if (canGrant(processId, request)) {
+                grantAll(processId, request);
+                checkAfterAllocation();
+                recordState();
+                completeWaiters();
+                return CompletableFuture.completedFuture(true);
+            }
+        }
+        
+        recordAvoidance();
+        ResourceWaitQueues.PendingRequest pending =
+            waitQueues.enqueueBundle(processId, request, processPriority[processId]);
+        for (int j = 0; j < request.length; j++) {
+            if (request[j] > 0) {
+                resourceUsage.onContention(j);
+                rag.addRequest(processId, j, request[j]);
+            }
+        }
+        scheduleTimeout(pending);
+        
+        if (!deadlockDetectionEnabled || !detectDeadlock()) {
+            performanceTracker.updateSystemStatus("Request queued: P" + processId + " waiting for all of its request");
+        }
+        
+        recordState();
+        completeWaiters();
+        return pending.getFuture();
+    }
+    
+    /**
+     * Applies the timestamp scheme to a request that cannot be granted right
+     * away, checking only the current holders of the resource. Under
+     * wait-die the requester may wait only if it is older than every holder;
+     * otherwise it dies (is aborted) and false is returned. Under wound-wait
+     * the requester aborts every younger holder and then waits for the older
+     * ones, so true is always returned. Either way a process only ever waits
+     * for younger (wait-die) or older (wound-wait) processes, so no cycle of
+     * waits can form.
+     */
+    private boolean resolveConflict(int processId, int resourceId) {
+        int[][] allocation = bankersAlg.getAllocationMatrix();
+        // A process that has to wait for its first resource starts its transaction now
+        startTransaction(processId);
+        long timestamp = processTimestamp[processId];
+        
+        if (timestampScheme == DeadlockPrevention.TimestampScheme.WAIT_DIE) {
+            for (int q = 0; q < allocation.length; q++) {
+                if (q != processId && allocation[q][resourceId] > 0 && processTimestamp[q] < timestamp) {
+                    abort(processId, false);
+                    performanceTracker.updateSystemStatus("P" + processId + " died: R" + resourceId
+                        + " is held by older P" + q);
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int wounded = 0;
+        for (int q = 0; q < allocation.length; q++) {
+            if (q != processId && allocation[q][resourceId] > 0 && processTimestamp[q] > timestamp) {
+                abort(q, true);
+                wounded++;
+            }
+        }
+        if (wounded > 0) {
+            performanceTracker.updateSystemStatus("P" + processId + " wounded " + wounded
+                + " younger holders of R" + resourceId);
+        }
+        return true;
+    }
+    
+    /**
+     * Gives a process a timestamp if it is not already in a transaction.
+     * Aborts keep the timestamp, so a restarted process keeps its age.
+     */
+    private void startTransaction(int processId) {
+        if (processTimestamp[processId] == NO_TIMESTAMP) {
+            processTimestamp[processId] = nextTimestamp++;
+        }
+    }
+    
+    /**
+     * Called when a process has released everything it held: the transaction
+     * is complete, so the next one gets a fresh timestamp, and the completion
+     * counts towards starvation aging.
+     */
+    private void endTransaction(int processId) {
+        processTimestamp[processId] = NO_TIMESTAMP;
+        recovery.onProcessCompleted(processId);
+    }
+    
+    /**
+     * Aborts a process: its outstanding requests are withdrawn (parked ones
+     * complete with false) and everything it holds is released. The process
+     * restarts at once with its original timestamp, so it only grows older
+     * relative to newcomers and cannot be aborted forever. Admission and
+     * history recording are left to the caller.
+     */
+    void abort(int processId, boolean wounded) {
+        abandonedWaiters.addAll(waitQueues.removeProcess(processId));
+        // A process wounded right after admission loses that grant too
+        Iterator<ResourceWaitQueues.PendingRequest> admitted = admittedWaiters.iterator();
+        while (admitted.hasNext()) {
+            ResourceWaitQueues.PendingRequest request = admitted.next();
+            if (request.processId == processId) {
+                admitted.remove();
+                abandonedWaiters.add(request);
+            }
+        }
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        for (int j = 0; j < held.length; j++) {
+            rag.removeRequest(processId, j);
+            if (held[j] > 0) {
+                release(processId, j, held[j]);
+            }
+        }
+        operationLog.checkpoint(processId);
+        abortCount[processId]++;
+        if (wounded) {
+            totalWounds++;
+            performanceTracker.recordDeadlockPrevention("Wound-Wait");
+        } else {
+            totalDies++;
+            performanceTracker.recordDeadlockPrevention("Wait-Die");
+        }
+    }
+    
+    /**
+     * Applies the timestamp scheme to the waits that already exist, e.g.
+     * request edges added straight to the graph or requests made before the
+     * scheme was enabled. Under wait-die every process waiting for an older
+     * holder dies; under wound-wait every holder that an older process waits
+     * for is wounded. Any cycle of waits contains both kinds of edge, so this
+     * clears every existing deadlock.
+     * 
+     * @return The aborted processes
+     */
+    public List<Integer> enforceTimestampScheme() {
+        if (timestampScheme == DeadlockPrevention.TimestampScheme.OFF) {
+            return List.of();
+        }
+        
+        boolean woundWait = timestampScheme == DeadlockPrevention.TimestampScheme.WOUND_WAIT;
+        boolean[] victim = findTimestampVictims(timestampScheme);
+        List<Integer> aborted = new ArrayList<>();
+        for (int i = 0; i < victim.length; i++) {
+            if (victim[i] && bankersAlg.isProcessActive(i)) {
+                abort(i, woundWait);
+                aborted.add(i);
+            }
+        }
+        if (!aborted.isEmpty()) {
+            admitWaiters(0);
+            recordState();
+            completeWaiters();
+        }
+        return aborted;
+    }
+    
+    /**
+     * Finds the processes a timestamp scheme would abort given the waits that
+     * currently exist, without aborting them.
+     * 
+     * @return Flags indexed by process id
+     */
+    boolean[] findTimestampVictims(DeadlockPrevention.TimestampScheme scheme) {
+        boolean woundWait = scheme == DeadlockPrevention.TimestampScheme.WOUND_WAIT;
+        int[][] requestEdges = rag.getRequestEdges();
+        int[][] allocationEdges = rag.getAllocationEdges();
+        boolean[] victim = new boolean[allocationEdges.length];
+        for (int j = 0; j < requestEdges.length; j++) {
+            for (int p = 0; p < requestEdges[j].length; p++) {
+                if (requestEdges[j][p] == 0) {
+                    continue;
+                }
+                for (int q = 0; q < allocationEdges.length; q++) {
+                    if (q == p || allocationEdges[q][j] == 0) {
+                        continue;
+                    }
+                    if (woundWait && processTimestamp[p] < processTimestamp[q]) {
+                        victim[q] = true;
+                    } else if (!woundWait && processTimestamp[q] < processTimestamp[p]) {
+                        victim[p] = true;
+                    }
+                }
+            }
+        }
+        return victim;
+    }
+    
+    private void scheduleTimeout(ResourceWaitQueues.PendingRequest request) {
+        if (requestTimeoutNanos > 0) {
+            // Count from when the process started waiting, if the graph knows
+            long arrival = rag.getRequestTime(request.processId, request.resourceId);
+            long start = arrival >= 0 ? arrival : nanoClock.getAsLong();
+            request.timer = requestTimers.schedule(start + requestTimeoutNanos, request);
+        }
+    }
+    
+    private void startLease(int processId, int resourceId) {
+        Lease lease = leases[processId][resourceId];
+        if (lease == null) {
+            lease = new Lease(processId, resourceId);
+            leases[processId][resourceId] = lease;
+        }
+        leaseTimers.cancel(lease.timer);
+        lease.timer = leaseTimers.schedule(nanoClock.getAsLong() + leaseNanos, lease);
+    }
+    
+    /**
+     * Fires every request timeout and lease that has expired by the engine
+     * clock. A timed-out request is withdrawn and its future completes with
+     * false. A process whose lease has run out while another process wants
+     * the resource has it preempted and is queued to win it back; an
+     * uncontended lease is simply renewed. Runs on every monitoring tick;
+     * drivers with their own clock should call it as time advances.
+     * 
+     * @return The number of requests timed out plus leases that were preempted
+     */
+    public int expireTimers() {
+        if (rag == null) {
+            return 0;
+        }
+        long before = timedOutRequests + expiredLeases;
+        long now = nanoClock.getAsLong();
+        requestTimers.advance(now, this::onRequestTimeout);
+        leaseTimers.advance(now, this::onLeaseExpired);
+        int expired = (int) (timedOutRequests + expiredLeases - before);
+        
+        if (expired > 0) {
+            performanceTracker.updateSystemStatus(expired + " waits timed out or leases expired");
+            admitWaiters(0);
+            recordState();
+        }
+        completeWaiters();
+        return expired;
+    }
+    
+    /**
+     * Withdraws every request that has waited longer than the request
+     * timeout. Parked requests expire through their timers; request edges
+     * added straight to the graph have no timer and are found by their
+     * arrival times instead.
+     * 
+     * @return The number of requests withdrawn
+     */
+    public int cancelStaleRequests() {
+        if (requestTimeoutNanos == 0 || rag == null) {
+            return 0;
+        }
+        long before = timedOutRequests;
+        expireTimers();
+        
+        long now = nanoClock.getAsLong();
+        int[][] requestEdges = rag.getRequestEdges();
+        int withdrawn = 0;
+        for (int j = 0; j < requestEdges.length; j++) {
+            for (int p = 0; p < requestEdges[j].length; p++) {
+                if (requestEdges[j][p] == 0) {
+                    continue;
+                }
+                long arrival = rag.getRequestTime(p, j);
+                if (arrival >= 0 && now - arrival >= requestTimeoutNanos && !waitQueues.contains(p, j)) {
+                    rag.removeRequest(p, j);
+                    withdrawn++;
+                    timedOutRequests++;
+                    performanceTracker.recordDeadlockPrevention("Timeout");
+                }
+            }
+        }
+        if (withdrawn > 0) {
+            performanceTracker.updateSystemStatus(withdrawn + " stale requests withdrawn");
+            recordState();
+        }
+        return (int) (timedOutRequests - before);
+    }
+    
+    private void onRequestTimeout(ResourceWaitQueues.PendingRequest request) {
+        request.timer = -1;
+        if (!request.isLive()) {
+            return;
+        }
+        request.expired = true;
+        removeRequestEdges(request);
+        abandonedWaiters.add(request);
+        timedOutRequests++;
+        performanceTracker.recordDeadlockPrevention("Timeout");
+    }
+    
+    private void onLeaseExpired(Lease lease) {
+        lease.timer = -1;
+        int held = bankersAlg.getAllocationMatrix()[lease.processId][lease.resourceId];
+        if (held == 0 || !bankersAlg.isProcessActive(lease.processId)) {
+            return;
+        }
+        if (waitQueues.getQueueDepth(lease.resourceId) > 0 || hasCompetingRequest(lease.resourceId, lease.processId)) {
+            preempt(lease.processId, lease.resourceId, held);
+            expiredLeases++;
+            performanceTracker.recordDeadlockPrevention("Lease Expiry");
+        } else {
+            lease.timer = leaseTimers.schedule(nanoClock.getAsLong() + leaseNanos, lease);
+        }
+    }
+    
+    private boolean isOutOfOrder(int processId, int resourceId) {
+        return resourceRank[resourceId] < highestHeldRank[processId];
+    }
+    
+    private void rejectOutOfOrder(int processId, int resourceId) {
+        performanceTracker.recordDeadlockPrevention("Resource Ordering");
+        performanceTracker.updateSystemStatus("Request denied: R" + resourceId
+            + " is ranked below a resource P" + processId + " holds");
+    }
+    
+    /**
+     * Releases the units a process holds of resources ranked above the one it
+     * has to wait for, then acquires the requested units followed by the
+     * released ones in ascending rank order. While it waits, the process holds
+     * only resources ranked below the one it waits for.
+     */
+    private CompletableFuture<Boolean> reorderAndWait(int processId, int resourceId, int units) {
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        int[] resources = new int[resourceRank.length + 1];
+        int[] amounts = new int[resourceRank.length + 1];
+        resources[0] = resourceId;
+        amounts[0] = units;
+        int count = 1;
+        for (int rank = resourceRank[resourceId] + 1; rank < rankedResource.length; rank++) {
+            int j = rankedResource[rank];
+            if (held[j] > 0) {
+                resources[count] = j;
+                amounts[count++] = held[j];
+            }
+        }
+        for (int i = 1; i < count; i++) {
+            release(processId, resources[i], amounts[i]);
+        }
+        
+        performanceTracker.recordDeadlockPrevention("Resource Ordering");
+        performanceTracker.updateSystemStatus("Reordered: P" + processId + " released " + (count - 1)
+            + " resources ranked above R" + resourceId);
+        admitWaiters(resources[1]);
+        return acquireInOrder(processId, Arrays.copyOf(resources, count), Arrays.copyOf(amounts, count), 0);
+    }
+    
+    private CompletableFuture<Boolean> acquireInOrder(int processId, int[] resources, int[] units, int from) {
+        for (int i = from; i < resources.length; i++) {
+            CompletableFuture<Boolean> step = requestResourceAsync(processId, resources[i], units[i]);
+            if (!step.isDone()) {
+                int next = i + 1;
+                return step.thenCompose(granted -> granted && next < resources.length
+                    ? acquireInOrder(processId, resources, units, next)
+                    : CompletableFuture.completedFuture(granted));
+            }
+            if (!step.join()) {
+                return step;
+            }
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+    
+    public void releaseResource(int processId, int resourceId, int units) {
+        if (release(processId, resourceId, units)) {
+            endTransaction(processId);
+        }
+        
+        performanceTracker.updateSystemStatus("Resource released successfully");
+        
+        // Let parked requests use the freed units
+        admitWaiters(resourceId);
+        
+        // Record the new state
+        recordState();
+        completeWaiters();
+    }
+    
+    /**
+     * Applies a list of commands in order as one step. Each request still gets
+     * its own Banker's safety check, but deadlock detection, status updates and
+     * history recording happen once at the end of the batch instead of per
+     * command, which makes replaying long traces much cheaper.
+     * 
+     * @param commands The commands to apply
+     * @param stopAtFirstDeadlock If true, detection runs after every request and
+     *        the batch stops at the first one that forms a deadlock
+     * @return The per-command results
+     */
+    public BatchResult applyBatch(List<Command> commands, boolean stopAtFirstDeadlock) {
+        boolean[] results = new boolean[commands.size()];
+        int applied = 0;
+        int deadlockIndex = -1;
+        long abortsBefore = getTotalAborts();
+        
+        for (Command command : commands) {
+            int processId = command.getProcessId();
+            switch (command.getType()) {
+                case REQUEST:
+                    if (orderingEnforcement == DeadlockPrevention.OrderingEnforcement.REJECT
+                            && isOutOfOrder(processId, command.getResourceId())) {
+                        rejectOutOfOrder(processId, command.getResourceId());
+                    } else if (canGrant(processId, command.getResourceId(), command.getUnits())
+                            || (timestampScheme != DeadlockPrevention.TimestampScheme.OFF
+                                && resolveConflict(processId, command.getResourceId())
+                                && canGrant(processId, command.getResourceId(), command.getUnits()))) {
+                        grant(processId, command.getResourceId(), command.getUnits());
+                        results[applied] = true;
+                    } else {
+                        recordAvoidance();
+                        resourceUsage.onContention(command.getResourceId());
+                    }
+                    break;
+                case RELEASE:
+                    if (release(processId, command.getResourceId(), command.getUnits())) {
+                        endTransaction(processId);
+                    }
+                    admitWaiters(command.getResourceId());
+                    results[applied] = true;
+                    break;
+                case SET_MAX:
+                    bankersAlg.setMaxDemand(processId, command.getMaxDemand());
+                    results[applied] = true;
+                    break;
+                case TERMINATE:
+                    if (bankersAlg.isProcessActive(processId)) {
+                        recovery.terminateProcess(processId);
+                        results[applied] = true;
+                    }
+                    break;
+                case PREEMPT: {
+                    int units = Math.min(command.getUnits(),
+                                         bankersAlg.getAllocationMatrix()[processId][command.getResourceId()]);
+                    if (units > 0 && bankersAlg.isProcessActive(processId)) {
+                        preempt(processId, command.getResourceId(), units);
+                        admitWaiters(command.getResourceId());
+                        results[applied] = true;
+                    }
+                    break;
+                }
+                case ABORT:
+                    if (bankersAlg.isProcessActive(processId)) {
+                        abort(processId, command.isWound());
+                        results[applied] = true;
+                    }
+                    break;
+                case WITHDRAW:
+                    results[applied] = withdraw(processId, command.getResourceId());
+                    break;
+                case REORDER:
+                    results[applied] = reorderWaiter(processId, command.getResourceId());
+                    break;
+            }
+            applied++;
+            
+            if (stopAtFirstDeadlock && deadlockDetectionEnabled && command.getType() == Command.Type.REQUEST
+                    && results[applied - 1] && detect()) {
+                deadlockIndex = applied - 1;
+                break;
+            }
+        }
+        
+        if (getTotalAborts() > abortsBefore) {
+            admitWaiters(0);
+        }
+        
+        List<Integer> deadlockedProcesses = Collections.emptyList();
+        if (deadlockDetectionEnabled && detect()) {
+            deadlockedProcesses = rag.getDeadlockedProcesses();
+            PerformanceTracker.DeadlockEvent event = performanceTracker.recordDeadlockDetection(deadlockedProcesses);
+            notifyDeadlockDetected(deadlockedProcesses, event);
+        } else {
+            performanceTracker.updateSystemStatus("Batch of " + applied + " commands applied");
+        }
+        
+        recordState();
+        completeWaiters();
+        return new BatchResult(results, applied, deadlockIndex, deadlockedProcesses);
+    }
+    
+    /**
+     * Withdraws a process's outstanding request for a resource as timed out,
+     * whether it is parked or was added straight to the graph.
+     */
+    private boolean withdraw(int processId, int resourceId) {
+        if (rag.getRequestEdges()[resourceId][processId] == 0) {
+            return false;
+        }
+        for (ResourceWaitQueues.PendingRequest request : waitQueues.removeRequests(processId, resourceId)) {
+            request.expired = true;
+            removeRequestEdges(request);
+            abandonedWaiters.add(request);
+        }
+        rag.removeRequest(processId, resourceId);
+        timedOutRequests++;
+        performanceTracker.recordDeadlockPrevention("Timeout");
+        return true;
+    }
+    
+    /**
+     * Makes a process that waits for a resource ranked below ones it holds
+     * give up those higher-ranked units. They are preempted, so the process
+     * is queued to win them back once the lower-ranked wait is over.
+     */
+    private boolean reorderWaiter(int processId, int resourceId) {
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        int first = -1;
+        for (int rank = resourceRank[resourceId] + 1; rank < rankedResource.length; rank++) {
+            int j = rankedResource[rank];
+            if (held[j] > 0) {
+                preempt(processId, j, held[j]);
+                if (first < 0) {
+                    first = j;
+                }
+            }
+        }
+        if (first < 0) {
+            return false;
+        }
+        performanceTracker.recordDeadlockPrevention("Resource Ordering");
+        admitWaiters(first);
+        return true;
+    }
+    
+    /**
+     * Runs cycle detection on the resource allocation graph.
+     */
+    private boolean detect() {
+        long start = startTiming(PerformanceTracker.Operation.DETECT);
+        dropCancelledWaiters();
+        boolean found = rag.detectDeadlock();
+        stopTiming(PerformanceTracker.Operation.DETECT, start);
+        return found;
+    }
+    
+    /**
+     * Starts timing an operation if instrumentation is on and the operation
+     * is due for a sample.
+     * 
+     * @return The start time, or 0 if this run is not timed
+     */
+    private long startTiming(PerformanceTracker.Operation operation) {
+        if (!instrumentation || --sampleCountdown[operation.ordinal()] > 0) {
+            return 0;
+        }
+        // Resolution and listener dispatch are rare enough to time every run
+        sampleCountdown[operation.ordinal()] = operation == PerformanceTracker.Operation.RESOLVE
+            || operation == PerformanceTracker.Operation.DISPATCH ? 1 : samplingPeriod;
+        return System.nanoTime();
+    }
+    
+    private void stopTiming(PerformanceTracker.Operation operation, long start) {
+        if (start != 0) {
+            performanceTracker.recordLatency(operation, System.nanoTime() - start);
+        }
+    }
+    
+    private void checkAfterAllocation() {
+        if (deadlockDetectionEnabled && detect()) {
+            List<Integer> deadlockedProcesses = rag.getDeadlockedProcesses();
+            PerformanceTracker.DeadlockEvent event = performanceTracker.recordDeadlockDetection(deadlockedProcesses);
+            notifyDeadlockDetected(deadlockedProcesses, event);
+        } else {
+            performanceTracker.updateSystemStatus("Resource allocated successfully");
+        }
+    }
+    
+    private void grant(int processId, int resourceId, int units) {
+        long start = startTiming(PerformanceTracker.Operation.ALLOCATE);
+        bankersAlg.allocateResource(processId, resourceId, units);
+        resourceUsage.onAllocate(resourceId, units);
+        startTransaction(processId);
+        grantCount[processId]++;
+        operationLog.record(processId, resourceId, units);
+        touch(processId);
+        if (resourceRank[resourceId] > highestHeldRank[processId]) {
+            highestHeldRank[processId] = resourceRank[resourceId];
+        }
+        rag.removeRequest(processId, resourceId);
+        int held = bankersAlg.getAllocationMatrix()[processId][resourceId];
+        rag.addAllocation(processId, resourceId, held);
+        if (leaseNanos > 0 && held == units) {
+            startLease(processId, resourceId);
+        }
+        stopTiming(PerformanceTracker.Operation.ALLOCATE, start);
+    }
+    
+    /**
+     * Checks whether a request can be granted now, with or without the
+     * Banker's safety check.
+     */
+    private boolean canGrant(int processId, int resourceId, int units) {
+        if (bankersAvoidance) {
+            long start = startTiming(PerformanceTracker.Operation.SAFETY_CHECK);
+            boolean safe = bankersAlg.isSafeState(processId, resourceId, units);
+            stopTiming(PerformanceTracker.Operation.SAFETY_CHECK, start);
+            return safe;
+        }
+        return bankersAlg.getAllocationMatrix()[processId][resourceId] + units <= bankersAlg.getMaxMatrix()[processId][resourceId]
+            && units <= bankersAlg.getAvailableResources()[resourceId];
+    }
+    
+    private boolean canGrant(int processId, int[] units) {
+        if (bankersAvoidance) {
+            long start = startTiming(PerformanceTracker.Operation.SAFETY_CHECK);
+            boolean safe = bankersAlg.isSafeState(processId, units);
+            stopTiming(PerformanceTracker.Operation.SAFETY_CHECK, start);
+            return safe;
+        }
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        int[] max = bankersAlg.getMaxMatrix()[processId];
+        int[] available = bankersAlg.getAvailableResources();
+        for (int j = 0; j < units.length; j++) {
+            if (held[j] + units[j] > max[j] || units[j] > available[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void recordAvoidance() {
+        // Without avoidance a request only waits because its units are taken
+        if (bankersAvoidance) {
+            performanceTracker.recordDeadlockPrevention("Banker's Algorithm");
+        }
+    }
+    
+    private void grantAll(int processId, int[] units) {
+        for (int j = 0; j < units.length; j++) {
+            if (units[j] > 0) {
+                grant(processId, j, units[j]);
+            }
+        }
+    }
+    
+    /**
+     * Drops parked requests the client has cancelled since their queue was
+     * last scanned. Their request edges would otherwise make detection and
+     * victim selection treat the process as still waiting.
+     */
+    private void dropCancelledWaiters() {
+        for (ResourceWaitQueues.PendingRequest request : waitQueues.removeNotLive()) {
+            requestTimers.cancel(request.timer);
+            request.timer = -1;
+            removeRequestEdges(request);
+        }
+    }
+    
+    private void removeRequestEdges(ResourceWaitQueues.PendingRequest request) {
+        if (request.bundle == null) {
+            rag.removeRequest(request.processId, request.resourceId);
+            return;
+        }
+        for (int j = 0; j < request.bundle.length; j++) {
+            if (request.bundle[j] > 0) {
+                rag.removeRequest(request.processId, j);
+            }
+        }
+    }
+    
+    /**
+     * Returns units to the pool. Returns true if the process now holds
+     * nothing, in which case it has been checkpointed implicitly.
+     */
+    private boolean release(int processId, int resourceId, int units) {
+        long start = startTiming(PerformanceTracker.Operation.RELEASE);
+        bankersAlg.releaseResource(processId, resourceId, units);
+        resourceUsage.onRelease(resourceId, units);
+        rag.removeAllocation(processId, resourceId, units);
+        operationLog.record(processId, resourceId, -units);
+        if (bankersAlg.getAllocationMatrix()[processId][resourceId] == 0) {
+            if (resourceRank[resourceId] == highestHeldRank[processId]) {
+                updateHighestHeldRank(processId);
+            }
+            if (leases[processId][resourceId] != null) {
+                leaseTimers.cancel(leases[processId][resourceId].timer);
+            }
+        }
+        
+        // A process holding nothing has nothing to roll back: checkpoint it implicitly
+        boolean holdsNothing = true;
+        for (int held : bankersAlg.getAllocationMatrix()[processId]) {
+            if (held > 0) {
+                holdsNothing = false;
+                break;
+            }
+        }
+        if (holdsNothing) {
+            operationLog.checkpoint(processId);
+        }
+        stopTiming(PerformanceTracker.Operation.RELEASE, start);
+        return holdsNothing;
+    }
+    
+    /**
+     * Re-admits every parked request that is now safe, starting with the queue
+     * of the resource that was just freed. Futures are completed later by
+     * completeWaiters() so that client callbacks never see a half-updated engine.
+     */
+    private void admitWaiters(int firstResource) {
+        if (waitQueues.getWaitingCount() == 0) {
+            return;
+        }
+        
+        int numResources = waitQueues.getNumResources();
+        int admittedBefore = admittedWaiters.size();
+        
+        // All-or-nothing requests go first, or single units would keep overtaking them
+        waitQueues.admitBundles(request -> {
+            if (!request.isLive()) {
+                removeRequestEdges(request);
+                return true;
+            }
+            if (!canGrant(request.processId, request.bundle)) {
+                return false;
+            }
+            grantAll(request.processId, request.bundle);
+            return true;
+        }, admittedWaiters);
+        for (int k = 0; k < numResources; k++) {
+            waitQueues.admit((firstResource + k) % numResources, request -> {
+                if (!request.isLive()) {
+                    // Cancelled by the client or timed out while parked
+                    removeRequestEdges(request);
+                    return true;
+                }
+                if (request.reacquire && hasGrantableCompetingRequest(request.resourceId, request.processId)) {
+                    // Winning back preempted units must not rebuild the cycle it broke
+                    return false;
+                }
+                if (bankersAlg.getAllocationMatrix()[request.processId][request.resourceId] + request.units
+                        > bankersAlg.getMaxMatrix()[request.processId][request.resourceId]) {
+                    // Can never be granted, e.g. a re-acquisition has already returned the units
+                    request.expired = true;
+                    abandonedWaiters.add(request);
+                    return true;
+                }
+                if (!canGrant(request.processId, request.resourceId, request.units)) {
+                    return false;
+                }
+                grant(request.processId, request.resourceId, request.units);
+                return true;
+            }, admittedWaiters);
+        }
+        
+        if (admittedWaiters.size() == admittedBefore) {
+            return;
+        }
+        
+        // The new holders may leave other waiters waiting for a process of the wrong age
+        if (timestampScheme != DeadlockPrevention.TimestampScheme.OFF && reapplyTimestampScheme(admittedBefore)) {
+            admitWaiters(0);
+            return;
+        }
+        performanceTracker.updateSystemStatus((admittedWaiters.size() - admittedBefore) + " queued requests admitted");
+        if (!resolving) {
+            checkAndNotifyDeadlocks();
+        }
+    }
+    
+    /**
+     * Applies the timestamp scheme between the processes just admitted and
+     * the processes still waiting for the resources they were granted. Under
+     * wait-die waiters younger than the new holder die; under wound-wait a
+     * new holder younger than any waiter is wounded.
+     * 
+     * @param from The index in admittedWaiters of the first new admission
+     * @return True if any process was aborted
+     */
+    private boolean reapplyTimestampScheme(int from) {
+        boolean woundWait = timestampScheme == DeadlockPrevention.TimestampScheme.WOUND_WAIT;
+        int[][] requestEdges = rag.getRequestEdges();
+        int[][] allocation = bankersAlg.getAllocationMatrix();
+        boolean aborted = false;
+        for (ResourceWaitQueues.PendingRequest request : new ArrayList<>(admittedWaiters.subList(from, admittedWaiters.size()))) {
+            int holder = request.processId;
+            for (int j = 0; j < requestEdges.length; j++) {
+                if (request.getUnits(j) == 0) {
+                    continue;
+                }
+                for (int p = 0; p < requestEdges[j].length && allocation[holder][j] > 0; p++) {
+                    if (p == holder || requestEdges[j][p] == 0 || !bankersAlg.isProcessActive(p)) {
+                        continue;
+                    }
+                    if (woundWait && processTimestamp[p] < processTimestamp[holder]) {
+                        abort(holder, true);
+                        aborted = true;
+                    } else if (!woundWait && processTimestamp[p] > processTimestamp[holder]) {
+                        abort(p, false);
+                        aborted = true;
+                    }
+                }
+            }
+        }
+        return aborted;
+    }
+    
+    private void completeWaiters() {
+        if (admittedWaiters.isEmpty() && abandonedWaiters.isEmpty()) {
+            return;
+        }
+        List<ResourceWaitQueues.PendingRequest> admitted = new ArrayList<>(admittedWaiters);
+        List<ResourceWaitQueues.PendingRequest> abandoned = new ArrayList<>(abandonedWaiters);
+        admittedWaiters.clear();
+        abandonedWaiters.clear();
+        for (ResourceWaitQueues.PendingRequest request : admitted) {
+            requestTimers.cancel(request.timer);
+            request.getFuture().complete(true);
+        }
+        for (ResourceWaitQueues.PendingRequest request : abandoned) {
+            requestTimers.cancel(request.timer);
+            request.getFuture().complete(false);
+        }
+    }
+    
+    /**
+     * Takes units of a resource away from a process without terminating it.
+     * The process is queued to win the units back, behind every other process
+     * currently asking for the resource.
+     * 
+     * @param processId The process to preempt
+     * @param resourceId The resource to take
+     * @param units The number of units to take; capped at what the process holds
+     * @return A future that completes with true once the process has re-acquired
+     *         the units, or false if nothing was preempted or the wait is abandoned
+     */
+    public CompletableFuture<Boolean> preemptResource(int processId, int resourceId, int units) {
+        units = Math.min(units, bankersAlg.getAllocationMatrix()[processId][resourceId]);
+        if (units <= 0 || !bankersAlg.isProcessActive(processId)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        ResourceWaitQueues.PendingRequest reacquire = preempt(processId, resourceId, units);
+        performanceTracker.updateSystemStatus("Preempted " + units + " units of R" + resourceId + " from P" + processId);
+        admitWaiters(resourceId);
+        recordState();
+        completeWaiters();
+        return reacquire.getFuture();
+    }
+    
+    /**
+     * Moves units from a process back to the pool and parks its re-acquisition.
+     * Request edges on the resource that were added straight to the graph are
+     * parked too, so the processes waiting on them are served before the victim.
+     * Admission and history recording are left to the caller.
+     */
+    ResourceWaitQueues.PendingRequest preempt(int processId, int resourceId, int units) {
+        int[][] requestEdges = rag.getRequestEdges();
+        int[][] need = bankersAlg.getNeedMatrix();
+        for (int q = 0; q < requestEdges[resourceId].length; q++) {
+            int requested = requestEdges[resourceId][q];
+            if (q != processId && requested > 0 && requested <= need[q][resourceId]
+                    && bankersAlg.isProcessActive(q) && !waitQueues.contains(q, resourceId)) {
+                scheduleTimeout(waitQueues.enqueue(q, resourceId, requested, processPriority[q]));
+            }
+        }
+        
+        release(processId, resourceId, units);
+        preemptionCount[processId]++;
+        totalPreemptions++;
+        rag.addRequest(processId, resourceId, requestEdges[resourceId][processId] + units);
+        touch(processId);
+        // Boost re-acquisitions under the PRIORITY policy the more often a process is preempted
+        return waitQueues.enqueueReacquire(processId, resourceId, units,
+                                           processPriority[processId] + preemptionCount[processId]);
+    }
+    
+    private void touch(int processId) {
+        if (!touched[processId]) {
+            touched[processId] = true;
+            touchedProcesses[touchedCount++] = processId;
+        }
+    }
+    
+    private void clearTouched() {
+        for (int i = 0; i < touchedCount; i++) {
+            touched[touchedProcesses[i]] = false;
+        }
+        touchedCount = 0;
+    }
+    
+    private boolean hasCompetingRequest(int resourceId, int processId) {
+        int[] requesters = rag.getRequestEdges()[resourceId];
+        int[][] need = bankersAlg.getNeedMatrix();
+        for (int q = 0; q < requesters.length; q++) {
+            if (q != processId && requesters[q] > 0 && requesters[q] <= need[q][resourceId]
+                    && bankersAlg.isProcessActive(q)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Checks whether another process wants the resource and could be granted
+     * its request right now. Re-acquisitions yield only to such requests, and
+     * not to each other, so several of them on the same resource are served
+     * in queue order instead of holding each other up forever.
+     */
+    private boolean hasGrantableCompetingRequest(int resourceId, int processId) {
+        int[] requesters = rag.getRequestEdges()[resourceId];
+        for (int q = 0; q < requesters.length; q++) {
+            if (q != processId && requesters[q] > 0 && bankersAlg.isProcessActive(q)
+                    && canGrant(q, resourceId, requesters[q]) && !waitQueues.isReacquiring(q, resourceId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Marks the current point as a process's checkpoint. A later rollback
+     * undoes only the grants and releases the process makes after this point.
+     * A process that releases everything it holds is checkpointed implicitly.
+     * 
+     * @param processId The process to checkpoint
+     */
+    public void checkpoint(int processId) {
+        operationLog.checkpoint(processId);
+    }
+    
+    /**
+     * Gets the number of grants and releases a process has made since its
+     * last checkpoint, which is the work a rollback would discard.
+     * 
+     * @param processId The process
+     * @return The number of operations since its checkpoint
+     */
+    public int getOperationsSinceCheckpoint(int processId) {
+        return operationLog.size(processId);
+    }
+    
+    /**
+     * Rolls a process back to its last checkpoint. Its outstanding requests
+     * are withdrawn (parked ones complete with false) and exactly the units it
+     * acquired since the checkpoint are released. Units it held at the
+     * checkpoint, and every other process, are left untouched. The process
+     * stays active and is expected to redo its work from the checkpoint.
+     * 
+     * @param processId The process to roll back
+     * @return The number of units released
+     */
+    public int rollbackProcess(int processId) {
+        int released = rollback(processId);
+        performanceTracker.updateSystemStatus("Rolled back P" + processId + ", releasing " + released + " units");
+        admitWaiters(0);
+        recordState();
+        completeWaiters();
+        return released;
+    }
+    
+    /**
+     * Performs a rollback without admitting waiters or recording history.
+     */
+    int rollback(int processId) {
+        abandonedWaiters.addAll(waitQueues.removeProcess(processId));
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        int[] net = operationLog.netAcquired(processId, held.length);
+        int released = 0;
+        for (int j = 0; j < held.length; j++) {
+            rag.removeRequest(processId, j);
+            int units = Math.min(net[j], held[j]);
+            if (units > 0) {
+                bankersAlg.releaseResource(processId, j, units);
+                resourceUsage.onRelease(j, units);
+                rag.removeAllocation(processId, j, units);
+                released += units;
+            }
+        }
+        operationLog.checkpoint(processId);
+        updateHighestHeldRank(processId);
+        rollbackCount[processId]++;
+        totalRollbacks++;
+        return released;
+    }
+    
+    /**
+     * Gets the number of times a process has been rolled back since initialization.
+     * 
+     * @param processId The process
+     * @return Its rollback count
+     */
+    public int getRollbackCount(int processId) {
+        return rollbackCount[processId];
+    }
+    
+    public long getTotalRollbacks() {
+        return totalRollbacks;
+    }
+    
+    /**
+     * Allocates units straight from the pool without any checks, for
+     * scenario setup and trace replay.
+     */
+    void seedAllocation(int processId, int resourceId, int units) {
+        bankersAlg.allocateResource(processId, resourceId, units);
+        resourceUsage.onAllocate(resourceId, units);
+        startTransaction(processId);
+        rag.addAllocation(processId, resourceId, units);
+    }
+    
+    /**
+     * Called by DeadlockRecovery after a process has been terminated: its
+     * parked requests are abandoned and the units it held are offered to the
+     * remaining waiters.
+     * 
+     * @param processId The terminated process
+     */
+    void onProcessTerminated(int processId) {
+        resourceUsage.resync(bankersAlg.getAllocationMatrix());
+        operationLog.checkpoint(processId);
+        highestHeldRank[processId] = -1;
+        abandonedWaiters.addAll(waitQueues.removeProcess(processId));
+        admitWaiters(0);
+    }
+    
+    public boolean detectDeadlock() {
+        boolean deadlockExists = detect();
+        
+        if (deadlockExists) {
+            List<Integer> deadlockedProcesses = rag.getDeadlockedProcesses();
+            PerformanceTracker.DeadlockEvent event = performanceTracker.recordDeadlockDetection(deadlockedProcesses);
+            notifyDeadlockDetected(deadlockedProcesses, event);
+        }
+        
+        return deadlockExists;
+    }
+    
+    private void checkAndNotifyDeadlocks() {
+        if (deadlockDetectionEnabled && detect()) {
+            List<Integer> deadlockedProcesses = rag.getDeadlockedProcesses();
+            PerformanceTracker.DeadlockEvent event = performanceTracker.recordDeadlockDetection(deadlockedProcesses);
+            notifyDeadlockDetected(deadlockedProcesses, event);
+        }
+    }
+    
+    public List<Integer> getDeadlockedProcesses() {
+        return rag.getDeadlockedProcesses();
+    }
+    
+    /**
+     * Resolves the current deadlocks with the configured recovery strategy.
+     * A single call may act on several processes: termination and rollback
+     * pick a set of victims covering every cycle, preemption may take from
+     * several holders, and resolve-until-clear repeats until no cycle remains.
+     * Waiters admitted while victims are removed are not checked for
+     * deadlock until the resolution is recorded; a cycle they closed is then
+     * reported as a new deadlock.
+     * 
+     * @return The processes terminated, rolled back or preempted from, or an empty list if there was no deadlock
+     */
+    public List<Integer> resolveDeadlock() {
+        long start = startTiming(PerformanceTracker.Operation.RESOLVE);
+        dropCancelledWaiters();
+        List<Integer> victims = List.of();
+        List<Integer> deadlockedProcesses;
+        if (resolveUntilClear) {
+            victims = resolveUntilClear();
+        } else if (recoveryStrategy == DeadlockRecovery.RecoveryStrategy.PREEMPTION) {
+            Set<Integer> preempted = new LinkedHashSet<>();
+            for (DeadlockRecovery.Preemption action : preemptDeadlockedResources()) {
+                preempted.add(action.getProcessId());
+            }
+            victims = new ArrayList<>(preempted);
+        } else if (!(deadlockedProcesses = getDeadlockedProcesses()).isEmpty()) {
+            boolean rollback = recoveryStrategy == DeadlockRecovery.RecoveryStrategy.ROLLBACK;
+            // Each termination admits waiters; the cycles still being broken must not be reported
+            resolving = true;
+            try {
+                if (rollback) {
+                    victims = recovery.rollbackToResolve();
+                    admitWaiters(0);
+                } else {
+                    victims = recovery.resolveDeadlock(deadlockedProcesses);
+                }
+            } finally {
+                resolving = false;
+            }
+            finishResolution(deadlockedProcesses, rollback ? "Process Rollback" : "Process Termination");
+            checkAndNotifyDeadlocks();
+        }
+        stopTiming(PerformanceTracker.Operation.RESOLVE, start);
+        return victims;
+    }
+    
+    /**
+     * Applies the recovery strategy repeatedly until no deadlock remains.
+     * Granting freed units to waiters (or queueing a preempted process to win
+     * its units back) can close new cycles, so after each round only the
+     * processes that gained a wait-for edge are searched again, together with
+     * whatever they can reach. The wait-for graph is patched rather than
+     * rebuilt: the allocation graph records which processes' requests and
+     * which resources' holders the round changed, and only the affected rows
+     * are recomputed. If a round added no edges, its victims broke every
+     * cycle and the search stops without touching the graph again. The
+     * whole loop is recorded as a single history step and a single resolution.
+     * 
+     * @return The processes acted on, in the order they were chosen
+     */
+    public List<Integer> resolveUntilClear() {
+        dropCancelledWaiters();
+        WaitForGraph graph = WaitForGraph.from(rag);
+        List<int[]> components = graph.findCyclicComponents();
+        if (components.isEmpty()) {
+            return List.of();
+        }
+        
+        boolean[] deadlocked = new boolean[graph.getNumProcesses()];
+        List<Integer> deadlockedProcesses = new ArrayList<>();
+        List<Integer> acted = new ArrayList<>();
+        int rounds = 0;
+        resolving = true;
+        rag.trackChanges();
+        try {
+            while (!components.isEmpty()) {
+                for (int[] members : components) {
+                    for (int processId : members) {
+                        if (!deadlocked[processId]) {
+                            deadlocked[processId] = true;
+                            deadlockedProcesses.add(processId);
+                        }
+                    }
+                }
+                
+                clearTouched();
+                List<Integer> victims = recovery.resolveRound(recoveryStrategy, graph, components);
+                admitWaiters(0);
+                rounds++;
+                acted.addAll(victims);
+                if (victims.isEmpty() || touchedCount == 0) {
+                    break;
+                }
+                
+                graph = graph.update(rag, rag.getRequestsChanged(), rag.getHoldersChanged());
+                rag.trackChanges();
+                components = graph.findCyclicComponents(Arrays.copyOf(touchedProcesses, touchedCount));
+            }
+        } finally {
+            rag.stopTrackingChanges();
+            resolving = false;
+            clearTouched();
+        }
+        
+        performanceTracker.updateSystemStatus("Deadlock cleared in " + rounds + " rounds, " + acted.size() + " victims");
+        finishResolution(deadlockedProcesses, strategyName(recoveryStrategy));
+        return acted;
+    }
+    
+    private static String strategyName(DeadlockRecovery.RecoveryStrategy strategy) {
+        switch (strategy) {
+            case PREEMPTION:
+                return "Resource Preemption";
+            case ROLLBACK:
+                return "Process Rollback";
+            default:
+                return "Process Termination";
+        }
+    }
+    
+    /**
+     * Resolves the current deadlocks by preempting contested resources from a
+     * minimum-cost set of victims, regardless of the recovery strategy setting.
+     * 
+     * @return The preemptions (and any fallback terminations) performed
+     */
+    public List<DeadlockRecovery.Preemption> preemptDeadlockedResources() {
+        dropCancelledWaiters();
+        List<Integer> deadlockedProcesses = getDeadlockedProcesses();
+        if (deadlockedProcesses.isEmpty()) {
+            return List.of();
+        }
+        
+        List<DeadlockRecovery.Preemption> actions;
+        resolving = true;
+        try {
+            actions = recovery.preemptToResolve();
+            admitWaiters(0);
+        } finally {
+            resolving = false;
+        }
+        finishResolution(deadlockedProcesses, "Resource Preemption");
+        checkAndNotifyDeadlocks();
+        return actions;
+    }
+    
+    private void finishResolution(List<Integer> deadlockedProcesses, String strategy) {
+        recordResolution(deadlockedProcesses, strategy);
+        recordState();
+        completeWaiters();
+    }
+    
+    /**
+     * Marks the latest unresolved deadlock event as resolved and notifies
+     * listeners, without recording history.
+     */
+    void recordResolution(List<Integer> deadlockedProcesses, String strategy) {
+        // Find the latest unresolved deadlock event
+        List<PerformanceTracker.DeadlockEvent> events = performanceTracker.getDeadlockEvents();
+        PerformanceTracker.DeadlockEvent latestEvent = null;
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (!events.get(i).isResolved()) {
+                latestEvent = events.get(i);
+                break;
+            }
+        }
+        
+        if (latestEvent != null) {
+            performanceTracker.recordDeadlockResolution(latestEvent, strategy);
+        }
+        
+        notifyDeadlockResolved(deadlockedProcesses, strategy);
+    }
+    
+    private void recordState() {
+        if (!historyRecording) {
+            return;
+        }
+        long start = startTiming(PerformanceTracker.Operation.RECORD_STATE);
+        
+        // SystemState deep-copies its inputs
+        SystemState currentState = new SystemState(
+            bankersAlg.getAllocationMatrix(),
+            bankersAlg.getMaxMatrix(),
+            bankersAlg.getNeedMatrix(),
+            bankersAlg.getAvailableResources(),
+            rag
+        );
+        
+        // Add to history and update index
+        if (currentStateIndex < stateHistory.size() - 1) {
+            // If we've gone back in history and now made a change,
+            // remove all future states
+            stateHistory.truncate(currentStateIndex + 1);
+        }
+        
+        stateHistory.add(currentState);
+        currentStateIndex = stateHistory.size() - 1;
+        stopTiming(PerformanceTracker.Operation.RECORD_STATE, start);
+    }
+    
+    public SystemState getCurrentState() {
+        if (currentStateIndex >= 0 && currentStateIndex < stateHistory.size()) {
+            return stateHistory.get(currentStateIndex);
+        }
+        return null;
+    }
+    
+    public boolean canGoBack() {
+        return currentStateIndex > stateHistory.getFirstIndex();
+    }
+    
+    public boolean canGoForward() {
+        return currentStateIndex < stateHistory.size() - 1;
+    }
+    
+    public void goBack() {
+        if (canGoBack()) {
+            currentStateIndex--;
+            restoreState(stateHistory.get(currentStateIndex));
+        }
+    }
+    
+    public void goForward() {
+        if (canGoForward()) {
+            currentStateIndex++;
+            restoreState(stateHistory.get(currentStateIndex));
+        }
+    }
+    
+    private void restoreState(SystemState state) {
+        // Copy so later allocations don't mutate the recorded history
+        bankersAlg.setAllocationMatrix(deepCopy(state.getAllocationMatrix()));
+        bankersAlg.setMaxMatrix(deepCopy(state.getMaxMatrix()));
+        bankersAlg.setNeedMatrix(deepCopy(state.getNeedMatrix()));
+        bankersAlg.setAvailableResources(state.getAvailableResources().clone());
+        rag = state.getResourceAllocationGraph().clone();
+        // States decoded from the spill file come back on the default clock
+        rag.setClock(nanoClock);
+        // Snapshots drop arrival times; restored waits count from now so they can still time out
+        rag.restampRequests();
+        resourceUsage.resync(bankersAlg.getAllocationMatrix());
+        
+        // Parked requests and operation logs belong to the timeline we just left
+        abandonedWaiters.addAll(waitQueues.clear());
+        operationLog = new OperationLog(state.getAllocationMatrix().length);
+        for (int i = 0; i < highestHeldRank.length; i++) {
+            updateHighestHeldRank(i);
+        }
+        completeWaiters();
+    }
+    
+    private static int[][] deepCopy(int[][] matrix) {
+        int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+    
+    /**
+     * Turns history recording on or off. Every recorded step snapshots all
+     * matrices, so load tests with many processes usually switch it off.
+     * 
+     * @param enabled Whether each operation should be recorded in the history
+     */
+    public void setHistoryRecording(boolean enabled) {
+        this.historyRecording = enabled;
+    }
+    
+    public boolean isHistoryRecording() {
+        return historyRecording;
+    }
+    
+    public StateHistory getStateHistory() {
+        return stateHistory;
+    }
+    
+    /**
+     * Sets how the engine enforces a global resource order. Under REJECT a
+     * request for a resource ranked below one the process already holds is
+     * denied. Under REORDER such a request is granted if it can be right
+     * away; if it would have to wait, the process first gives up its
+     * higher-ranked units and re-acquires them, in rank order, after the
+     * requested ones. Either way no process ever waits for a resource ranked
+     * below one it holds, so circular wait cannot arise through the engine's
+     * request methods. Each check is O(1) against the highest rank the
+     * process holds.
+     * 
+     * @param enforcement The enforcement mode
+     */
+    public void setOrderingEnforcement(DeadlockPrevention.OrderingEnforcement enforcement) {
+        this.orderingEnforcement = enforcement;
+    }
+    
+    public DeadlockPrevention.OrderingEnforcement getOrderingEnforcement() {
+        return orderingEnforcement;
+    }
+    
+    /**
+     * Sets the rank of every resource for ordering enforcement. By default a
+     * resource's rank is its id.
+     * 
+     * @param ranks The rank of each resource; a permutation of 0..numResources-1
+     */
+    public void setResourceRanks(int[] ranks) {
+        if (ranks.length != resourceRank.length) {
+            throw new IllegalArgumentException("Expected " + resourceRank.length + " ranks, got " + ranks.length);
+        }
+        int[] inverse = new int[ranks.length];
+        Arrays.fill(inverse, -1);
+        for (int j = 0; j < ranks.length; j++) {
+            if (ranks[j] < 0 || ranks[j] >= ranks.length || inverse[ranks[j]] >= 0) {
+                throw new IllegalArgumentException("Ranks must be a permutation of 0.." + (ranks.length - 1));
+            }
+            inverse[ranks[j]] = j;
+        }
+        resourceRank = ranks.clone();
+        rankedResource = inverse;
+        for (int i = 0; i < highestHeldRank.length; i++) {
+            updateHighestHeldRank(i);
+        }
+    }
+    
+    public int getResourceRank(int resourceId) {
+        return resourceRank[resourceId];
+    }
+    
+    /**
+     * Gets the highest rank among the resources a process currently holds.
+     * 
+     * @param processId The process
+     * @return The highest rank held, or -1 if it holds nothing
+     */
+    public int getHighestHeldRank(int processId) {
+        return highestHeldRank[processId];
+    }
+    
+    private void updateHighestHeldRank(int processId) {
+        int highest = -1;
+        int[] held = bankersAlg.getAllocationMatrix()[processId];
+        for (int j = 0; j < held.length; j++) {
+            if (held[j] > 0 && resourceRank[j] > highest) {
+                highest = resourceRank[j];
+            }
+        }
+        highestHeldRank[processId] = highest;
+    }
+    
+    /**
+     * Sets the nanosecond clock used for request arrival times, timeouts and
+     * leases, e.g. a simulation's virtual clock. Timers are laid out against
+     * the clock when the system is initialized, so set it before initialize.
+     * 
+     * @param clock A monotonic nanosecond clock
+     */
+    public void setNanoClock(LongSupplier clock) {
+        this.nanoClock = clock;
+        if (rag != null) {
+            rag.setClock(clock);
+        }
+    }
+    
+    public LongSupplier getNanoClock() {
+        return nanoClock;
+    }
+    
+    /**
+     * Sets how long a parked request may wait before it is withdrawn and its
+     * future completes with false. Applies to requests parked from now on;
+     * zero (the default) disables timeouts. Requests re-acquiring preempted
+     * units never time out.
+     * 
+     * @param timeout The maximum wait
+     * @param unit Its unit
+     */
+    public void setRequestTimeout(long timeout, TimeUnit unit) {
+        this.requestTimeoutNanos = unit.toNanos(timeout);
+    }
+    
+    public long getRequestTimeoutNanos() {
+        return requestTimeoutNanos;
+    }
+    
+    /**
+     * Sets how long a process may hold a resource before the engine may take
+     * it back for a waiting process. The lease starts when the process goes
+     * from holding none of the resource to holding some. Applies to grants
+     * from now on; zero (the default) disables leases.
+     * 
+     * @param lease The lease duration
+     * @param unit Its unit
+     */
+    public void setLeaseDuration(long lease, TimeUnit unit) {
+        this.leaseNanos = unit.toNanos(lease);
+    }
+    
+    public long getLeaseDurationNanos() {
+        return leaseNanos;
+    }
+    
+    public long getTimedOutRequests() {
+        return timedOutRequests;
+    }
+    
+    public long getExpiredLeases() {
+        return expiredLeases;
+    }
+    
+    /**
+     * Sets the timestamp-based prevention scheme applied when a request
+     * cannot be granted right away. See {@link #enforceTimestampScheme()} for
+     * waits that already exist when the scheme is enabled.
+     * 
+     * @param scheme The scheme
+     */
+    public void setTimestampScheme(DeadlockPrevention.TimestampScheme scheme) {
+        this.timestampScheme = scheme;
+    }
+    
+    public DeadlockPrevention.TimestampScheme getTimestampScheme() {
+        return timestampScheme;
+    }
+    
+    /**
+     * Gets the timestamp a process was given when its current transaction
+     * started, on its first grant (or first wait) while holding nothing;
+     * smaller is older. Aborted processes keep theirs when they restart, and
+     * a process that releases everything gets a new one next time.
+     * 
+     * @param processId The process
+     * @return Its timestamp, or NO_TIMESTAMP between transactions
+     */
+    public long getProcessTimestamp(int processId) {
+        return processTimestamp[processId];
+    }
+    
+    /**
+     * Gets the number of times a process has been aborted and restarted.
+     * 
+     * @param processId The process
+     * @return Its abort count
+     */
+    public int getAbortCount(int processId) {
+        return abortCount[processId];
+    }
+    
+    public long getTotalDies() {
+        return totalDies;
+    }
+    
+    public long getTotalWounds() {
+        return totalWounds;
+    }
+    
+    public long getTotalAborts() {
+        return totalDies + totalWounds;
+    }
+    
+    /**
+     * Sets whether the engine runs cycle detection on its own, after
+     * allocations, batches, queue admissions and on the monitoring timer.
+     * With ordering enforcement on and all requests going through the engine,
+     * circular wait is impossible and detection can be switched off.
+     * Explicit calls to detectDeadlock still run.
+     * 
+     * @param enabled True to keep automatic detection on
+     */
+    public void setDeadlockDetectionEnabled(boolean enabled) {
+        this.deadlockDetectionEnabled = enabled;
+    }
+    
+    public boolean isDeadlockDetectionEnabled() {
+        return deadlockDetectionEnabled;
+    }
+    
+    /**
+     * Sets whether requests must pass the Banker's safety check. With
+     * avoidance off a request is granted whenever its units are available
+     * and within the process's maximum claim, and deadlocks are left to the
+     * prevention strategy in force or to detection and recovery.
+     * 
+     * @param enabled True to grant only requests that keep the system safe
+     */
+    public void setBankersAvoidance(boolean enabled) {
+        this.bankersAvoidance = enabled;
+    }
+    
+    public boolean isBankersAvoidance() {
+        return bankersAvoidance;
+    }
+    
+    /**
+     * Sets whether the engine times its hot paths (detection, safety checks,
+     * allocation, release, history recording, resolution and listener
+     * dispatch) with System.nanoTime. Samples go to the performance tracker's
+     * per-operation histograms. On by default.
+     * 
+     * @param enabled True to record operation latencies
+     */
+    public void setInstrumentation(boolean enabled) {
+        this.instrumentation = enabled;
+    }
+    
+    public boolean isInstrumentation() {
+        return instrumentation;
+    }
+    
+    /**
+     * Sets how many runs of each hot operation pass per timed run. Reading
+     * the clock and recording a sample cost far more than a single
+     * allocation or release, so timing every run would slow the engine
+     * noticeably; sampling keeps the percentiles representative at a
+     * fraction of the cost. Resolution and listener dispatch are always timed.
+     * 
+     * @param period 1 to time every run, or a larger sampling period
+     */
+    public void setSamplingPeriod(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Sampling period must be at least 1: " + period);
+        }
+        this.samplingPeriod = period;
+        Arrays.fill(sampleCountdown, 0);
+    }
+    
+    public int getSamplingPeriod() {
+        return samplingPeriod;
+    }
+    
+    /**
+     * Sets the order in which parked requests are re-admitted. Requests that
+     * are already waiting are moved over in their original arrival order.
+     * 
+     * @param policy The fairness policy
+     */
+    public void setFairnessPolicy(ResourceWaitQueues.FairnessPolicy policy) {
+        this.fairnessPolicy = policy;
+        if (waitQueues != null && waitQueues.getPolicy() != policy) {
+            ResourceWaitQueues queues = new ResourceWaitQueues(waitQueues.getNumResources(), policy);
+            List<ResourceWaitQueues.PendingRequest> waiting = waitQueues.clear();
+            waiting.sort(Comparator.comparingLong(request -> request.sequence));
+            for (ResourceWaitQueues.PendingRequest request : waiting) {
+                queues.requeue(request);
+            }
+            waitQueues = queues;
+        }
+    }
+    
+    public ResourceWaitQueues.FairnessPolicy getFairnessPolicy() {
+        return fairnessPolicy;
+    }
+    
+    /**
+     * Sets a process's priority for the PRIORITY fairness policy; higher goes first.
+     * 
+     * @param processId The process
+     * @param priority Its priority
+     */
+    public void setProcessPriority(int processId, int priority) {
+        processPriority[processId] = priority;
+    }
+    
+    public int getProcessPriority(int processId) {
+        return processPriority[processId];
+    }
+    
+    /**
+     * Gets the number of requests granted to a process since initialization.
+     * 
+     * @param processId The process
+     * @return Its grant count
+     */
+    public int getGrantCount(int processId) {
+        return grantCount[processId];
+    }
+    
+    /**
+     * Sets the cost model used to choose which processes to terminate when
+     * resolving a deadlock.
+     * 
+     * @param model The victim cost model
+     */
+    public void setVictimCostModel(VictimCostModel model) {
+        this.victimCostModel = Objects.requireNonNull(model);
+    }
+    
+    public VictimCostModel getVictimCostModel() {
+        return victimCostModel;
+    }
+    
+    /**
+     * Sets how strongly repeat victims are protected. A process's victim cost
+     * is multiplied by 1 + weight * streak * (1 + age), where streak is the
+     * number of times it has been picked since it last released everything
+     * and age is the number of resolutions since that streak began. A weight
+     * of 0 disables aging.
+     * 
+     * @param weight The aging weight, non-negative
+     */
+    public void setVictimAgingWeight(double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Aging weight must be non-negative: " + weight);
+        }
+        this.victimAgingWeight = weight;
+    }
+    
+    public double getVictimAgingWeight() {
+        return victimAgingWeight;
+    }
+    
+    /**
+     * Sets whether resolveDeadlock terminates victims or preempts their
+     * contested resources.
+     * 
+     * @param strategy The recovery strategy
+     */
+    public void setRecoveryStrategy(DeadlockRecovery.RecoveryStrategy strategy) {
+        this.recoveryStrategy = Objects.requireNonNull(strategy);
+    }
+    
+    public DeadlockRecovery.RecoveryStrategy getRecoveryStrategy() {
+        return recoveryStrategy;
+    }
+    
+    /**
+     * Sets whether resolveDeadlock keeps applying the recovery strategy until
+     * the system is deadlock-free, as {@link #resolveUntilClear()} does.
+     * 
+     * @param enabled True to loop until clear
+     */
+    public void setResolveUntilClear(boolean enabled) {
+        this.resolveUntilClear = enabled;
+    }
+    
+    public boolean isResolveUntilClear() {
+        return resolveUntilClear;
+    }
+    
+    /**
+     * Gets the number of times resources have been preempted from a process
+     * since initialization.
+     * 
+     * @param processId The process
+     * @return Its preemption count
+     */
+    public int getPreemptionCount(int processId) {
+        return preemptionCount[processId];
+    }
+    
+    public long getTotalPreemptions() {
+        return totalPreemptions;
+    }
+    
+    /**
+     * Sets how many times a process may be preempted before recovery
+     * terminates it instead, which bounds how long any process can starve.
+     * 
+     * @param maxPreemptions The preemption budget per process
+     */
+    public void setMaxPreemptions(int maxPreemptions) {
+        this.maxPreemptions = maxPreemptions;
+    }
+    
+    public int getMaxPreemptions() {
+        return maxPreemptions;
+    }
+    
+    public ResourceWaitQueues getWaitQueues() {
+        return waitQueues;
+    }
+    
+    /**
+     * Gets the live utilization, queue depth and contention of each resource.
+     */
+    public ResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+    
+    public BankersAlgorithm getBankersAlgorithm() {
+        return bankersAlg;
+    }
+    
+    public ResourceAllocationGraph getResourceAllocationGraph() {
+        return rag;
+    }
+    
+    public DeadlockRecovery getDeadlockRecovery() {
+        return recovery;
+    }
+    
+    public DeadlockPrevention getDeadlockPrevention() {
+        return prevention;
+    }
+    
+    public PerformanceTracker getPerformanceTracker() {
+        return performanceTracker;
+    }
+    
+    /**
+     * Starts real-time monitoring of the system for deadlocks. The periodic check
+     * is scheduled on a daemon thread and handed to the monitoring executor, so
+     * no UI toolkit is needed to run it. The check expires timers, resolves
+     * and records state, so it must run on the engine's thread.
+     * 
+     * @throws IllegalStateException If no monitoring executor has been set
+     */
+    public synchronized void startMonitoring() {
+        if (monitoringExecutor == null) {
+            throw new IllegalStateException("Set a monitoring executor that runs on the engine's thread first");
+        }
+        if (monitoringTask == null) {
+            if (monitoringScheduler == null) {
+                monitoringScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "deadlock-monitor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            monitoringTask = monitoringScheduler.scheduleAtFixedRate(
+                () -> monitoringExecutor.execute(this::monitoringTick),
+                MONITORING_INTERVAL_MS, MONITORING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            performanceTracker.startMonitoring();
+        }
+    }
+    
+    /**
+     * Starts real-time monitoring, running each check on the given executor.
+     * 
+     * @param engineThread Runs tasks on the thread that drives the engine,
+     *        e.g. Platform::runLater for a JavaFX UI or a single-thread executor
+     *        the caller submits all of its engine calls to
+     */
+    public synchronized void startMonitoring(Executor engineThread) {
+        setMonitoringExecutor(engineThread);
+        startMonitoring();
+    }
+    
+    /**
+     * Stops real-time monitoring of the system.
+     */
+    public synchronized void stopMonitoring() {
+        if (monitoringTask != null) {
+            monitoringTask.cancel(false);
+            monitoringTask = null;
+            performanceTracker.stopMonitoring();
+        }
+    }
+    
+    /**
+     * Sets the executor that runs each monitoring check. The engine is not
+     * thread-safe and the listener dispatcher takes events from a single
+     * producer, so callers that drive it from a single thread (such as a UI
+     * event thread) must pass an executor that runs on that thread. There is
+     * no default; monitoring cannot start until one is set.
+     * 
+     * @param executor The executor for monitoring checks
+     */
+    public void setMonitoringExecutor(Executor executor) {
+        this.monitoringExecutor = Objects.requireNonNull(executor);
+    }
+    
+    /**
+     * Stops monitoring and releases the engine's background threads and its
+     * history, including the spill file.
+     */
+    public synchronized void shutdown() {
+        stopMonitoring();
+        if (monitoringScheduler != null) {
+            monitoringScheduler.shutdownNow();
+            monitoringScheduler = null;
+        }
+        listenerDispatcher.shutdown();
+        // Closes and deletes the spill file
+        stateHistory.clear();
+        currentStateIndex = -1;
+    }
+    
+    private void monitoringTick() {
+        if (performanceTracker.isMonitoringActive() && rag != null) {
+            expireTimers();
+            checkAndNotifyDeadlocks();
+        }
+    }
+    
+    /**
+     * Adds a listener for deadlock events. Listeners are called asynchronously
+     * on the dispatcher's consumer threads, never on the engine's thread.
+     * 
+     * @param listener The listener to add
+     */
+    public void addDeadlockListener(DeadlockListener listener) {
+        listenerDispatcher.addListener(listener);
+    }
+    
+    /**
+     * Removes a listener for deadlock events.
+     * 
+     * @param listener The listener to remove
+     */
+    public void removeDeadlockListener(DeadlockListener listener) {
+        listenerDispatcher.removeListener(listener);
+    }
+    
+    /**
+     * Replaces the dispatcher used to deliver listener notifications, e.g. to
+     * change its ring size, consumer count or wait strategy. Listeners already
+     * registered are moved to the new dispatcher.
+     * 
+     * @param dispatcher The new dispatcher
+     */
+    public void setListenerDispatcher(DeadlockEventDispatcher dispatcher) {
+        DeadlockEventDispatcher old = listenerDispatcher;
+        listenerDispatcher = dispatcher;
+        performanceTracker.setListenerDispatcher(dispatcher);
+        old.transferListenersTo(dispatcher);
+        old.shutdown();
+    }
+    
+    public DeadlockEventDispatcher getListenerDispatcher() {
+        return listenerDispatcher;
+    }
+    
+    /**
+     * Notifies all listeners that a deadlock has been detected.
+     * 
+     * @param processes The processes involved in the deadlock
+     * @param event The deadlock event
+     */
+    private void notifyDeadlockDetected(List<Integer> processes, PerformanceTracker.DeadlockEvent event) {
+        long start = startTiming(PerformanceTracker.Operation.DISPATCH);
+        listenerDispatcher.publishDetected(processes, event);
+        stopTiming(PerformanceTracker.Operation.DISPATCH, start);
+    }
+    
+    /**
+     * Notifies all listeners that a deadlock has been resolved.
+     * 
+     * @param processes The processes that were involved in the deadlock
+     * @param strategy The strategy used to resolve the deadlock
+     */
+    private void notifyDeadlockResolved(List<Integer> processes, String strategy) {
+        long start = startTiming(PerformanceTracker.Operation.DISPATCH);
+        listenerDispatcher.publishResolved(processes, strategy);
+        stopTiming(PerformanceTracker.Operation.DISPATCH, start);
+    }
+    
+    /**
+     * Interface for deadlock event listeners.
+     */
+    public interface DeadlockListener {
+        /**
+         * Called when a deadlock is detected.
+         * 
+         * @param processes The processes involved in the deadlock
+         * @param event The deadlock event
+         */
+        void onDeadlockDetected(List<Integer> processes, PerformanceTracker.DeadlockEvent event);
+        
+        /**
+         * Called when a deadlock is resolved.
+         * 
+         * @param processes The processes that were involved in the deadlock
+         * @param strategy The strategy used to resolve the deadlock
+         */
+        void onDeadlockResolved(List<Integer> processes, String strategy);
+    }
+    
+    /**
+     * A process's lease on one resource; reused across grants.
+     */
+    private static final class Lease {
+        final int processId;
+        final int resourceId;
+        long timer = -1;
+        
+        Lease(int processId, int resourceId) {
+            this.processId = processId;
+            this.resourceId = resourceId;
+        }
+    }
+}
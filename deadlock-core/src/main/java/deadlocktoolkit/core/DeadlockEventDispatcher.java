@@ -0,0 +1,371 @@
+package deadlocktoolkit.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers deadlock notifications to listeners off the engine's thread.
+ *
+ * The engine is the single producer: it claims a preallocated, mutable slot in
+ * a ring buffer, fills it and publishes the sequence number. One or more
+ * consumer threads drain the ring in batches and call the listeners, so a slow
+ * listener never stalls requestResource. Listeners are partitioned across
+ * consumers, which means each listener still sees events in order.
+ *
+ * If the slowest consumer falls a full ring behind, new events are dropped
+ * rather than blocking the engine, and counted in {@link #getDroppedEvents()}.
+ * A slot's references are cleared once every consumer has delivered it, so
+ * delivered events don't stay reachable until the slot is reused.
+ */
+public class DeadlockEventDispatcher {
+    public static final int DEFAULT_RING_SIZE = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    
+    private static final int DETECTED = 0;
+    private static final int RESOLVED = 1;
+    
+    /**
+     * How idle consumer threads wait for new events.
+     */
+    public enum WaitStrategy {
+        /** Park until the producer signals; lowest CPU use, highest wake-up latency. */
+        BLOCKING,
+        /** Spin briefly, then sleep in short intervals. */
+        SLEEPING,
+        /** Spin, yielding the CPU between checks. */
+        YIELDING,
+        /** Spin without yielding; lowest latency, burns a core per consumer. */
+        BUSY_SPIN
+    }
+    
+    private final Slot[] ring;
+    private final int mask;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final EventConsumer[] consumers;
+    private final List<DeadlockEngine.DeadlockListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Producer state, only touched by the publishing thread
+    private long nextSequence = 0;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    
+    // Statistics
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong deliveredBatches = new AtomicLong();
+    private final AtomicLong listenerErrors = new AtomicLong();
+    private volatile long maxLag;
+    private volatile boolean running;
+    
+    public DeadlockEventDispatcher() {
+        this(DEFAULT_RING_SIZE, 1, DEFAULT_BATCH_SIZE, WaitStrategy.BLOCKING);
+    }
+    
+    /**
+     * @param ringSize Number of preallocated slots, rounded up to a power of two
+     * @param consumerThreads Number of consumer threads listeners are spread across
+     * @param batchSize Maximum number of events a consumer drains before publishing progress
+     * @param waitStrategy How idle consumers wait for new events
+     */
+    public DeadlockEventDispatcher(int ringSize, int consumerThreads, int batchSize, WaitStrategy waitStrategy) {
+        if (ringSize < 1 || consumerThreads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Ring size, consumer threads and batch size must be positive");
+        }
+        int capacity = Integer.highestOneBit(ringSize);
+        if (capacity < ringSize) {
+            capacity <<= 1;
+        }
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.consumers = new EventConsumer[consumerThreads];
+        for (int i = 0; i < consumerThreads; i++) {
+            consumers[i] = new EventConsumer(i);
+        }
+    }
+    
+    public void addListener(DeadlockEngine.DeadlockListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        start();
+    }
+    
+    public void removeListener(DeadlockEngine.DeadlockListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Moves every registered listener to another dispatcher.
+     *
+     * @param other The dispatcher that takes over the listeners
+     */
+    public void transferListenersTo(DeadlockEventDispatcher other) {
+        for (DeadlockEngine.DeadlockListener listener : listeners) {
+            other.addListener(listener);
+        }
+        listeners.clear();
+    }
+    
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+    
+    /**
+     * Publishes a deadlock detection event. Must only be called by one thread at a time.
+     *
+     * @return false if the event was dropped because the ring was full
+     */
+    public boolean publishDetected(List<Integer> processes, PerformanceTracker.DeadlockEvent event) {
+        return publish(DETECTED, processes, event, null);
+    }
+    
+    /**
+     * Publishes a deadlock resolution event. Must only be called by one thread at a time.
+     *
+     * @return false if the event was dropped because the ring was full
+     */
+    public boolean publishResolved(List<Integer> processes, String strategy) {
+        return publish(RESOLVED, processes, null, strategy);
+    }
+    
+    private boolean publish(int type, List<Integer> processes, PerformanceTracker.DeadlockEvent event, String strategy) {
+        if (listeners.isEmpty()) {
+            return true;
+        }
+        long sequence = nextSequence;
+        long lag = sequence - minimumConsumerSequence() - 1;
+        if (lag > maxLag) {
+            maxLag = lag;
+        }
+        if (lag > mask) {
+            droppedEvents.incrementAndGet();
+            return false;
+        }
+        
+        Slot slot = ring[(int) (sequence & mask)];
+        slot.type = type;
+        slot.processes = processes;
+        slot.event = event;
+        slot.strategy = strategy;
+        slot.pending.set(consumers.length);
+        
+        nextSequence = sequence + 1;
+        cursor.set(sequence);
+        publishedEvents.incrementAndGet();
+        
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            for (EventConsumer consumer : consumers) {
+                if (consumer.parked) {
+                    LockSupport.unpark(consumer.thread);
+                }
+            }
+        }
+        return true;
+    }
+    
+    private long minimumConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (EventConsumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+    
+    /**
+     * Starts the consumer threads. Called automatically when a listener is
+     * added, so adding one after a shutdown restarts delivery; the consumers
+     * of the previous run are first allowed to finish draining, and the new
+     * ones carry on from where they stopped.
+     *
+     * @throws IllegalStateException If interrupted while the previous consumers drain
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        for (EventConsumer consumer : consumers) {
+            if (consumer.thread != null) {
+                try {
+                    consumer.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while the previous listener threads stop", e);
+                }
+            }
+        }
+        running = true;
+        for (EventConsumer consumer : consumers) {
+            consumer.thread = new Thread(consumer, "deadlock-listener-" + consumer.index);
+            consumer.thread.setDaemon(true);
+            consumer.thread.start();
+        }
+    }
+    
+    /**
+     * Stops the consumer threads after they drain what has already been
+     * published. Events published afterwards wait in the ring until start.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        for (EventConsumer consumer : consumers) {
+            if (consumer.thread != null) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+    
+    public long getPublishedEvents() {
+        return publishedEvents.get();
+    }
+    
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+    
+    /**
+     * Gets the number of events that every consumer has finished delivering.
+     * 
+     * @return The number of fully delivered events
+     */
+    public long getDeliveredEvents() {
+        return minimumConsumerSequence() + 1;
+    }
+    
+    public long getDeliveredBatches() {
+        return deliveredBatches.get();
+    }
+    
+    public long getListenerErrors() {
+        return listenerErrors.get();
+    }
+    
+    /**
+     * Gets the number of published events the slowest consumer has not finished yet.
+     *
+     * @return The current lag in events
+     */
+    public long getLag() {
+        return cursor.get() - minimumConsumerSequence();
+    }
+    
+    public long getMaxLag() {
+        return maxLag;
+    }
+    
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+    
+    /**
+     * A preallocated, reusable event holder.
+     */
+    private static final class Slot {
+        int type;
+        List<Integer> processes;
+        PerformanceTracker.DeadlockEvent event;
+        String strategy;
+        // Consumers yet to deliver the event; the last one clears the slot
+        final AtomicInteger pending = new AtomicInteger();
+        
+        void clear() {
+            processes = null;
+            event = null;
+            strategy = null;
+        }
+    }
+    
+    private final class EventConsumer implements Runnable {
+        final int index;
+        final AtomicLong sequence = new AtomicLong(-1);
+        volatile boolean parked;
+        Thread thread;
+        
+        EventConsumer(int index) {
+            this.index = index;
+        }
+        
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long available = cursor.get();
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    idleSpins = idle(idleSpins);
+                    continue;
+                }
+                idleSpins = 0;
+                
+                long last = Math.min(available, next + batchSize - 1);
+                for (long seq = next; seq <= last; seq++) {
+                    Slot slot = ring[(int) (seq & mask)];
+                    deliver(slot);
+                    if (slot.pending.decrementAndGet() == 0) {
+                        slot.clear();
+                    }
+                }
+                deliveredBatches.incrementAndGet();
+                sequence.set(last);
+            }
+        }
+        
+        private void deliver(Slot slot) {
+            int count = consumers.length;
+            int i = 0;
+            for (DeadlockEngine.DeadlockListener listener : listeners) {
+                if (i++ % count != index) {
+                    continue;
+                }
+                try {
+                    if (slot.type == DETECTED) {
+                        listener.onDeadlockDetected(slot.processes, slot.event);
+                    } else {
+                        listener.onDeadlockResolved(slot.processes, slot.strategy);
+                    }
+                } catch (RuntimeException e) {
+                    listenerErrors.incrementAndGet();
+                }
+            }
+        }
+        
+        private int idle(int spins) {
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELDING:
+                    Thread.yield();
+                    break;
+                case SLEEPING:
+                    if (spins < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    }
+                    break;
+                case BLOCKING:
+                default:
+                    parked = true;
+                    // Re-check after announcing we're parked so a publish can't be missed
+                    if (cursor.get() <= sequence.get() && running) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                    }
+                    parked = false;
+                    break;
+            }
+            return spins + 1;
+        }
+    }
+}
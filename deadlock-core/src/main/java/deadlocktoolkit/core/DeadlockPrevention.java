@@ -0,0 +1,287 @@
+package deadlocktoolkit.core;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implements various deadlock prevention strategies.
+ */
+public class DeadlockPrevention {
+    // Request timeout used when the TIMEOUT strategy is applied without one configured
+    public static final long DEFAULT_REQUEST_TIMEOUT_MS = 5000;
+    
+    private DeadlockEngine engine;
+    
+    public enum PreventionStrategy {
+        RESOURCE_ORDERING,
+        PREEMPTION,
+        TIMEOUT,
+        ALL_OR_NOTHING,
+        WAIT_DIE,
+        WOUND_WAIT
+    }
+    
+    /**
+     * How DeadlockEngine enforces the global resource order on requests.
+     */
+    public enum OrderingEnforcement {
+        /** Requests may be made in any order. */
+        OFF,
+        /** Deny requests for a resource ranked below one the process holds. */
+        REJECT,
+        /** Make a process that must wait out of order give up and re-acquire its higher-ranked units. */
+        REORDER
+    }
+    
+    /**
+     * Timestamp-based scheme DeadlockEngine applies when a request conflicts
+     * with the current holders of a resource. Older processes have smaller
+     * timestamps.
+     */
+    public enum TimestampScheme {
+        /** Conflicting requests are left to the Banker's check and the wait queues. */
+        OFF,
+        /** An older requester waits; a younger one is aborted. */
+        WAIT_DIE,
+        /** An older requester aborts the younger holders; a younger one waits. */
+        WOUND_WAIT
+    }
+    
+    public DeadlockPrevention(DeadlockEngine engine) {
+        this.engine = engine;
+    }
+    
+    /**
+     * Applies a deadlock prevention strategy to the current system state.
+     * @param strategy The prevention strategy to apply
+     * @return A description of the actions taken
+     */
+    public String applyPreventionStrategy(PreventionStrategy strategy) {
+        return apply(strategy).toString();
+    }
+    
+    /**
+     * Plans and executes a prevention strategy. Unlike applyPreventionStrategy
+     * nothing is formatted unless the returned plan's toString() is called.
+     * 
+     * @param strategy The prevention strategy to apply
+     * @return The executed plan
+     */
+    public ActionPlan apply(PreventionStrategy strategy) {
+        ActionPlan plan = plan(strategy);
+        execute(plan);
+        return plan;
+    }
+    
+    /**
+     * Works out what a prevention strategy would do to the current system
+     * state, without changing it.
+     * 
+     * @param strategy The prevention strategy
+     * @return The planned actions
+     */
+    public ActionPlan plan(PreventionStrategy strategy) {
+        switch (strategy) {
+            case RESOURCE_ORDERING:
+                return planResourceOrdering();
+            case PREEMPTION:
+                return engine.getDeadlockRecovery().planPreemptions();
+            case TIMEOUT:
+                return planTimeout();
+            case ALL_OR_NOTHING:
+                return planAllOrNothing();
+            case WAIT_DIE:
+                return planTimestampScheme(strategy, TimestampScheme.WAIT_DIE);
+            case WOUND_WAIT:
+                return planTimestampScheme(strategy, TimestampScheme.WOUND_WAIT);
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+    
+    /**
+     * Carries out a plan: switches the engine into the plan's strategy for
+     * new requests, then applies every action other than WAIT as one
+     * {@link DeadlockEngine#applyBatch batch}, so detection and history
+     * recording happen once for the whole plan.
+     * 
+     * @param plan A plan from {@link #plan(PreventionStrategy)}, made against the current state
+     */
+    public void execute(ActionPlan plan) {
+        List<Integer> deadlockedProcesses = List.of();
+        switch (plan.getStrategy()) {
+            case RESOURCE_ORDERING:
+                if (engine.getOrderingEnforcement() == OrderingEnforcement.OFF) {
+                    engine.setOrderingEnforcement(OrderingEnforcement.REORDER);
+                }
+                break;
+            case PREEMPTION:
+                deadlockedProcesses = engine.getDeadlockedProcesses();
+                engine.getDeadlockRecovery().recordVictims(plan);
+                break;
+            case TIMEOUT:
+                if (engine.getRequestTimeoutNanos() == 0) {
+                    engine.setRequestTimeout(plan.getTimeoutNanos(), TimeUnit.NANOSECONDS);
+                }
+                break;
+            case WAIT_DIE:
+                engine.setTimestampScheme(TimestampScheme.WAIT_DIE);
+                break;
+            case WOUND_WAIT:
+                engine.setTimestampScheme(TimestampScheme.WOUND_WAIT);
+                break;
+            default:
+                break;
+        }
+        
+        List<Command> commands = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            int processId = plan.getProcessId(i);
+            int resourceId = plan.getResourceId(i);
+            switch (plan.getKind(i)) {
+                case PREEMPT:
+                    commands.add(Command.preempt(processId, resourceId, (int) plan.getValue(i)));
+                    break;
+                case ABORT:
+                    commands.add(Command.abort(processId, plan.getStrategy() == PreventionStrategy.WOUND_WAIT));
+                    break;
+                case TERMINATE:
+                    commands.add(Command.terminate(processId));
+                    break;
+                case WITHDRAW:
+                    commands.add(Command.withdraw(processId, resourceId));
+                    break;
+                case REORDER:
+                    commands.add(Command.reorder(processId, resourceId));
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+        
+        engine.applyBatch(commands, false);
+        if (!deadlockedProcesses.isEmpty() && !engine.getResourceAllocationGraph().detectDeadlock()) {
+            engine.recordResolution(deadlockedProcesses, "Resource Preemption");
+        }
+    }
+    
+    /**
+     * Plans resource ordering: every process waiting for a resource ranked
+     * below one it holds gives up its higher-ranked units and wins them back
+     * in rank order. Executing the plan also turns on the engine's ordering
+     * enforcement, so from then on no process waits out of order.
+     */
+    private ActionPlan planResourceOrdering() {
+        ResourceAllocationGraph rag = engine.getResourceAllocationGraph();
+        // Indexed [resource][process]
+        int[][] requestEdges = rag.getRequestEdges();
+        int numProcesses = rag.getAllocationEdges().length;
+        ActionPlan plan = new ActionPlan(PreventionStrategy.RESOURCE_ORDERING);
+        
+        for (int i = 0; i < numProcesses; i++) {
+            int highestHeld = engine.getHighestHeldRank(i);
+            for (int j = 0; j < requestEdges.length; j++) {
+                if (requestEdges[j][i] > 0 && engine.getResourceRank(j) < highestHeld) {
+                    plan.reorder(i, j);
+                }
+            }
+        }
+        return plan;
+    }
+    
+    /**
+     * Plans the timeout strategy: every request that has already waited
+     * longer than the engine's request timeout (or the default, if none is
+     * set) is withdrawn. Requests still within the timeout are left waiting
+     * with the time they have left; the engine withdraws them automatically
+     * as they expire.
+     */
+    private ActionPlan planTimeout() {
+        long timeout = engine.getRequestTimeoutNanos();
+        if (timeout == 0) {
+            timeout = TimeUnit.MILLISECONDS.toNanos(DEFAULT_REQUEST_TIMEOUT_MS);
+        }
+        ResourceAllocationGraph rag = engine.getResourceAllocationGraph();
+        // Indexed [resource][process]
+        int[][] requestEdges = rag.getRequestEdges();
+        int numProcesses = rag.getAllocationEdges().length;
+        long now = engine.getNanoClock().getAsLong();
+        ActionPlan plan = new ActionPlan(PreventionStrategy.TIMEOUT, timeout);
+        
+        for (int i = 0; i < numProcesses; i++) {
+            for (int j = 0; j < requestEdges.length; j++) {
+                if (requestEdges[j][i] == 0) {
+                    continue;
+                }
+                long arrival = rag.getRequestTime(i, j);
+                if (arrival < 0) {
+                    plan.wait(i, j, -1);
+                } else if (now - arrival >= timeout) {
+                    plan.withdraw(i, j, now - arrival);
+                } else {
+                    plan.wait(i, j, timeout - (now - arrival));
+                }
+            }
+        }
+        return plan;
+    }
+    
+    /**
+     * Plans the all-or-nothing strategy by checking, for each process,
+     * whether its whole remaining need could be granted at once with a single
+     * Banker's check, and finding processes that hold resources while
+     * waiting for more. Both are left waiting: such processes should acquire
+     * through DeadlockEngine.requestAll, which never leaves them holding part
+     * of a request.
+     */
+    private ActionPlan planAllOrNothing() {
+        BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+        int[][] allocationMatrix = bankersAlg.getAllocationMatrix();
+        int[][] needMatrix = bankersAlg.getNeedMatrix();
+        // Indexed [resource][process]
+        int[][] requestEdges = engine.getResourceAllocationGraph().getRequestEdges();
+        ActionPlan plan = new ActionPlan(PreventionStrategy.ALL_OR_NOTHING);
+        
+        for (int i = 0; i < allocationMatrix.length; i++) {
+            if (!bankersAlg.isProcessActive(i)) {
+                continue;
+            }
+            if (!bankersAlg.isSafeState(i, needMatrix[i].clone())) {
+                plan.wait(i, -1, 0);
+            }
+            boolean holds = false;
+            for (int j = 0; j < allocationMatrix[i].length; j++) {
+                holds |= allocationMatrix[i][j] > 0;
+            }
+            if (holds) {
+                for (int j = 0; j < requestEdges.length; j++) {
+                    if (requestEdges[j][i] > 0) {
+                        plan.wait(i, j, requestEdges[j][i]);
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+    
+    /**
+     * Plans Wait-Die or Wound-Wait against the waits that already exist:
+     * under Wait-Die every process waiting for an older one dies, under
+     * Wound-Wait every process an older one waits for is wounded. Executing
+     * the plan also enables the scheme in the engine for new requests.
+     */
+    private ActionPlan planTimestampScheme(PreventionStrategy strategy, TimestampScheme scheme) {
+        BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+        ActionPlan plan = new ActionPlan(strategy);
+        boolean[] victim = engine.findTimestampVictims(scheme);
+        for (int i = 0; i < victim.length; i++) {
+            if (victim[i] && bankersAlg.isProcessActive(i)) {
+                plan.abort(i, engine.getProcessTimestamp(i));
+            }
+        }
+        return plan;
+    }
+}
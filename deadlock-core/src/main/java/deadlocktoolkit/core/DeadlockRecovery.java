@@ -0,0 +1,383 @@
+package deadlocktoolkit.core;
+
+import java.util.*;
+
+public class DeadlockRecovery {
+    
+    /**
+     * How resolveDeadlock breaks cycles.
+     */
+    public enum RecoveryStrategy {
+        /** Terminate the victims, releasing everything they hold. */
+        TERMINATION,
+        /** Take only the contested resources from the victims and queue them to win them back. */
+        PREEMPTION,
+        /** Roll the victims back to their last checkpoints, undoing only their recent work. */
+        ROLLBACK
+    }
+    
+    private DeadlockEngine engine;
+    
+    // Starvation state, indexed by process id. A streak is the run of
+    // victimizations since the process last completed (held nothing).
+    private final int[] victimStreak;
+    private final long[] streakStart;
+    private final int[] victimizations;
+    private long resolutionRound;
+    
+    public DeadlockRecovery(DeadlockEngine engine) {
+        this.engine = engine;
+        int numProcesses = engine.getBankersAlgorithm().getAllocationMatrix().length;
+        victimStreak = new int[numProcesses];
+        streakStart = new long[numProcesses];
+        victimizations = new int[numProcesses];
+    }
+    
+    /**
+     * Terminates a minimum-cost set of processes that breaks every cycle in the
+     * current wait-for graph, so a single call clears all deadlocks. Victims are
+     * chosen by {@link VictimSelector} using the engine's victim cost model,
+     * scaled by each process's {@link #agingFactor(int) aging factor}.
+     * 
+     * @param deadlockedProcesses The processes reported as deadlocked
+     * @return The terminated processes
+     */
+    public List<Integer> resolveDeadlock(List<Integer> deadlockedProcesses) {
+        if (deadlockedProcesses.isEmpty()) {
+            return List.of();
+        }
+        
+        WaitForGraph graph = WaitForGraph.from(engine.getResourceAllocationGraph());
+        return terminateVictims(graph, graph.findCyclicComponents());
+    }
+    
+    /**
+     * Runs one round of the given strategy against already-computed cyclic
+     * components and returns the processes acted on.
+     */
+    List<Integer> resolveRound(RecoveryStrategy strategy, WaitForGraph graph, List<int[]> components) {
+        switch (strategy) {
+            case PREEMPTION:
+                List<Integer> victims = new ArrayList<>();
+                for (Preemption action : preemptVictims(graph, components)) {
+                    if (victims.isEmpty() || victims.get(victims.size() - 1) != action.getProcessId()) {
+                        victims.add(action.getProcessId());
+                    }
+                }
+                return victims;
+            case ROLLBACK:
+                return rollbackVictims(graph, components);
+            default:
+                return terminateVictims(graph, components);
+        }
+    }
+    
+    private List<Integer> terminateVictims(WaitForGraph graph, List<int[]> components) {
+        resolutionRound++;
+        double[] cost = new double[graph.getNumProcesses()];
+        VictimCostModel costModel = engine.getVictimCostModel();
+        for (int[] members : components) {
+            for (int processId : members) {
+                cost[processId] = costModel.cost(engine, processId) * agingFactor(processId);
+            }
+        }
+        
+        List<Integer> victims = new ArrayList<>();
+        for (int victim : VictimSelector.selectVictims(graph, components, cost)) {
+            recordVictim(victim);
+            terminateProcess(victim);
+            victims.add(victim);
+        }
+        return victims;
+    }
+    
+    /**
+     * Breaks every cycle by preempting resources instead of terminating
+     * processes. Victims are chosen as a minimum-cost feedback vertex set, with
+     * each process's cost scaled by its {@link #agingFactor(int) aging factor}
+     * so the work is spread around. From each victim only the units
+     * of resources that other processes in its cycle are waiting for are taken;
+     * the victim is queued to re-acquire them once that contention clears.
+     * A victim that has used up its preemption budget is terminated instead,
+     * so no process can be preempted indefinitely.
+     * 
+     * @return The preemptions and terminations performed
+     */
+    public List<Preemption> preemptToResolve() {
+        WaitForGraph graph = WaitForGraph.from(engine.getResourceAllocationGraph());
+        return preemptVictims(graph, graph.findCyclicComponents());
+    }
+    
+    private List<Preemption> preemptVictims(WaitForGraph graph, List<int[]> components) {
+        ActionPlan plan = planPreemptions(graph, components);
+        recordVictims(plan);
+        List<Preemption> actions = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            int victim = plan.getProcessId(i);
+            if (plan.getKind(i) == ActionPlan.Kind.TERMINATE) {
+                terminateProcess(victim);
+                actions.add(Preemption.termination(victim));
+            } else {
+                engine.preempt(victim, plan.getResourceId(i), (int) plan.getValue(i));
+                actions.add(new Preemption(victim, plan.getResourceId(i), (int) plan.getValue(i)));
+            }
+        }
+        return actions;
+    }
+    
+    /**
+     * Works out what preemptToResolve would do, without changing any state.
+     * The plan's actions for each victim are adjacent.
+     * 
+     * @return A PREEMPTION plan of preemptions and fallback terminations,
+     *         empty if there is no deadlock
+     */
+    public ActionPlan planPreemptions() {
+        WaitForGraph graph = WaitForGraph.from(engine.getResourceAllocationGraph());
+        return planPreemptions(graph, graph.findCyclicComponents());
+    }
+    
+    private ActionPlan planPreemptions(WaitForGraph graph, List<int[]> components) {
+        ActionPlan plan = new ActionPlan(DeadlockPrevention.PreventionStrategy.PREEMPTION);
+        if (components.isEmpty()) {
+            return plan;
+        }
+        
+        // Costs are aged as of the round that carries the plan out
+        long round = resolutionRound + 1;
+        ResourceAllocationGraph rag = engine.getResourceAllocationGraph();
+        double[] cost = new double[graph.getNumProcesses()];
+        int[] componentOf = new int[graph.getNumProcesses()];
+        Arrays.fill(componentOf, -1);
+        VictimCostModel costModel = engine.getVictimCostModel();
+        for (int c = 0; c < components.size(); c++) {
+            for (int processId : components.get(c)) {
+                componentOf[processId] = c;
+                int preemptions = engine.getPreemptionCount(processId);
+                cost[processId] = preemptions >= engine.getMaxPreemptions()
+                    ? Double.MAX_VALUE
+                    : costModel.cost(engine, processId) * agingFactor(processId, round);
+            }
+        }
+        
+        int[][] allocationEdges = rag.getAllocationEdges();
+        int[][] requestEdges = rag.getRequestEdges();
+        for (int victim : VictimSelector.selectVictims(graph, components, cost)) {
+            if (engine.getPreemptionCount(victim) >= engine.getMaxPreemptions()) {
+                plan.terminate(victim);
+                continue;
+            }
+            
+            for (int j = 0; j < allocationEdges[victim].length; j++) {
+                int held = allocationEdges[victim][j];
+                if (held == 0) {
+                    continue;
+                }
+                // Units wanted by the victim's cycle partners
+                int wanted = 0;
+                for (int q = 0; q < requestEdges[j].length; q++) {
+                    if (q != victim && componentOf[q] == componentOf[victim]) {
+                        wanted += requestEdges[j][q];
+                    }
+                }
+                if (wanted > 0) {
+                    plan.preempt(victim, j, Math.min(held, wanted));
+                }
+            }
+        }
+        return plan;
+    }
+    
+    /**
+     * Starts a resolution round and records every process a plan acts on as
+     * a victim, for starvation aging.
+     */
+    void recordVictims(ActionPlan plan) {
+        if (plan.isEmpty()) {
+            return;
+        }
+        resolutionRound++;
+        for (int i = 0; i < plan.size(); i++) {
+            if (i == 0 || plan.getProcessId(i) != plan.getProcessId(i - 1)) {
+                recordVictim(plan.getProcessId(i));
+            }
+        }
+    }
+    
+    /**
+     * Breaks every cycle by rolling victims back to their checkpoints. A
+     * rolled-back process withdraws its outstanding requests, so it no longer
+     * waits on anyone, and gives up the units it acquired since its
+     * checkpoint. Victims are the minimum-cost feedback vertex set where the
+     * cost of a process is the work it would redo (its operations since the
+     * checkpoint), scaled by its {@link #agingFactor(int) aging factor}.
+     * 
+     * @return The rolled-back processes
+     */
+    public List<Integer> rollbackToResolve() {
+        WaitForGraph graph = WaitForGraph.from(engine.getResourceAllocationGraph());
+        return rollbackVictims(graph, graph.findCyclicComponents());
+    }
+    
+    private List<Integer> rollbackVictims(WaitForGraph graph, List<int[]> components) {
+        resolutionRound++;
+        double[] cost = new double[graph.getNumProcesses()];
+        for (int[] members : components) {
+            for (int processId : members) {
+                cost[processId] = (1.0 + engine.getOperationsSinceCheckpoint(processId)) * agingFactor(processId);
+            }
+        }
+        
+        List<Integer> victims = new ArrayList<>();
+        for (int victim : VictimSelector.selectVictims(graph, components, cost)) {
+            recordVictim(victim);
+            engine.rollback(victim);
+            victims.add(victim);
+        }
+        return victims;
+    }
+    
+    /**
+     * Gets the factor by which a process's victim cost is raised so that repeat
+     * victims are increasingly protected. It is 1 for a process outside a
+     * streak and grows with both the number of times the process has been
+     * picked since it last completed and the number of resolutions since the
+     * streak began.
+     * 
+     * @param processId The process
+     * @return The aging factor, at least 1
+     */
+    public double agingFactor(int processId) {
+        return agingFactor(processId, resolutionRound);
+    }
+    
+    private double agingFactor(int processId, long round) {
+        int streak = victimStreak[processId];
+        if (streak == 0) {
+            return 1.0;
+        }
+        long age = round - streakStart[processId];
+        return 1.0 + engine.getVictimAgingWeight() * streak * (1 + age);
+    }
+    
+    public int getVictimStreak(int processId) {
+        return victimStreak[processId];
+    }
+    
+    public int getVictimizations(int processId) {
+        return victimizations[processId];
+    }
+    
+    /**
+     * Gets the number of resolutions since a process's current streak began.
+     * 
+     * @param processId The process
+     * @return The age of its streak, or 0 if it is not in one
+     */
+    public long getStarvationAge(int processId) {
+        return victimStreak[processId] == 0 ? 0 : resolutionRound - streakStart[processId];
+    }
+    
+    private void recordVictim(int processId) {
+        if (victimStreak[processId]++ == 0) {
+            streakStart[processId] = resolutionRound;
+        }
+        victimizations[processId]++;
+        engine.getPerformanceTracker().recordVictimization(
+            processId, victimStreak[processId], resolutionRound - streakStart[processId]);
+    }
+    
+    /**
+     * Called by the engine when a process releases everything it holds,
+     * which ends any victimization streak.
+     */
+    void onProcessCompleted(int processId) {
+        if (victimStreak[processId] > 0) {
+            engine.getPerformanceTracker().recordStarvationEnded(processId, resolutionRound - streakStart[processId]);
+            victimStreak[processId] = 0;
+        }
+    }
+    
+    void terminateProcess(int processId) {
+        BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+        int[][] allocationMatrix = bankersAlg.getAllocationMatrix();
+        int[] availableResources = bankersAlg.getAvailableResources();
+        
+        // Release all resources held by the process
+        for (int j = 0; j < allocationMatrix[processId].length; j++) {
+            availableResources[j] += allocationMatrix[processId][j];
+            allocationMatrix[processId][j] = 0;
+        }
+        
+        // Clear max claims
+        int[][] maxMatrix = bankersAlg.getMaxMatrix();
+        Arrays.fill(maxMatrix[processId], 0);
+        
+        // Update matrices
+        bankersAlg.setAllocationMatrix(allocationMatrix);
+        bankersAlg.setMaxMatrix(maxMatrix);
+        bankersAlg.setAvailableResources(availableResources);
+        
+        // Mark process as terminated
+        bankersAlg.setProcessActive(processId, false);
+        
+        // Clear any pending requests in the RAG
+        ResourceAllocationGraph rag = engine.getResourceAllocationGraph();
+        for (int j = 0; j < availableResources.length; j++) {
+            rag.removeRequest(processId, j);
+            rag.removeAllocation(processId, j, Integer.MAX_VALUE);
+        }
+        
+        // Drop its parked requests and hand the freed units to waiters
+        engine.onProcessTerminated(processId);
+    }
+    
+    /**
+     * A single recovery action: units of one resource taken from a process,
+     * or the termination of a process that could not be preempted again.
+     */
+    public static class Preemption {
+        private final int processId;
+        private final int resourceId;
+        private final int units;
+        
+        Preemption(int processId, int resourceId, int units) {
+            this.processId = processId;
+            this.resourceId = resourceId;
+            this.units = units;
+        }
+        
+        static Preemption termination(int processId) {
+            return new Preemption(processId, -1, 0);
+        }
+        
+        public int getProcessId() {
+            return processId;
+        }
+        
+        /**
+         * Gets the preempted resource.
+         * 
+         * @return The resource id, or -1 if the process was terminated
+         */
+        public int getResourceId() {
+            return resourceId;
+        }
+        
+        public int getUnits() {
+            return units;
+        }
+        
+        public boolean isTermination() {
+            return resourceId < 0;
+        }
+        
+        @Override
+        public String toString() {
+            if (isTermination()) {
+                return "P" + processId + ": terminated (preemption limit reached)";
+            }
+            return "P" + processId + ": preempted R" + resourceId + " (" + units + " units)";
+        }
+    }
+}
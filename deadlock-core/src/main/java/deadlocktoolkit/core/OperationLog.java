@@ -0,0 +1,62 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+
+/**
+ * Per-process log of the grants and releases made since each process's last
+ * checkpoint.
+ *
+ * Entries are kept in two parallel int arrays per process (resource id and
+ * signed unit delta), so logging an operation is an array store. Taking a
+ * checkpoint simply empties the process's log, which keeps it bounded by the
+ * work done since the last checkpoint.
+ */
+final class OperationLog {
+    private static final int INITIAL_CAPACITY = 8;
+    
+    private final int[][] resources;
+    private final int[][] deltas;
+    private final int[] sizes;
+    
+    OperationLog(int numProcesses) {
+        resources = new int[numProcesses][];
+        deltas = new int[numProcesses][];
+        sizes = new int[numProcesses];
+    }
+    
+    /**
+     * Appends an operation: positive units for a grant, negative for a release.
+     */
+    void record(int processId, int resourceId, int delta) {
+        int size = sizes[processId];
+        if (resources[processId] == null) {
+            resources[processId] = new int[INITIAL_CAPACITY];
+            deltas[processId] = new int[INITIAL_CAPACITY];
+        } else if (size == resources[processId].length) {
+            resources[processId] = Arrays.copyOf(resources[processId], size * 2);
+            deltas[processId] = Arrays.copyOf(deltas[processId], size * 2);
+        }
+        resources[processId][size] = resourceId;
+        deltas[processId][size] = delta;
+        sizes[processId] = size + 1;
+    }
+    
+    void checkpoint(int processId) {
+        sizes[processId] = 0;
+    }
+    
+    int size(int processId) {
+        return sizes[processId];
+    }
+    
+    /**
+     * Gets the net units of every resource acquired since the checkpoint.
+     */
+    int[] netAcquired(int processId, int numResources) {
+        int[] net = new int[numResources];
+        for (int i = 0; i < sizes[processId]; i++) {
+            net[resources[processId][i]] += deltas[processId][i];
+        }
+        return net;
+    }
+}
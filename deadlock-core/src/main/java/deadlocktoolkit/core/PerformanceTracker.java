@@ -0,0 +1,715 @@
+package deadlocktoolkit.core;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks performance metrics and deadlock statistics for the DeadlockToolkit.
+ */
+public class PerformanceTracker {
+    
+    /**
+     * Engine operations whose latency is tracked, in nanoseconds.
+     */
+    public enum Operation {
+        DETECT("Detection"),
+        SAFETY_CHECK("Safety Check"),
+        ALLOCATE("Allocation"),
+        RELEASE("Release"),
+        RECORD_STATE("History Recording"),
+        RESOLVE("Resolution"),
+        DISPATCH("Listener Dispatch");
+        
+        private final String label;
+        
+        Operation(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    // Performance metrics
+    private int totalDeadlocks;
+    private int resolvedDeadlocks;
+    private int preventedDeadlocks;
+    private Map<String, Integer> resolutionStrategyCounts;
+    private List<DeadlockEvent> deadlockEvents;
+    private long totalResolutionTime; // in milliseconds
+    
+    // Real-time monitoring
+    private StateProperty<Boolean> deadlockDetected;
+    private StateProperty<Integer> deadlockedProcessCount;
+    private StateProperty<String> systemStatus;
+    private boolean monitoringActive;
+    
+    // Source of event timestamps; a simulation can substitute virtual time
+    private Clock clock = Clock.systemDefaultZone();
+    
+    // Additional performance metrics for the Performance tab
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private List<Double> utilizationHistory = new ArrayList<>();
+    private double deadlockFrequency = 0.0; // deadlocks per minute
+    private double resourceUtilization;
+    private ResourceUsage resourceUsage;
+    
+    // Starvation metrics, indexed by process id and grown on demand
+    private int[] victimizationCounts = new int[0];
+    private int[] currentVictimStreaks = new int[0];
+    private int[] longestVictimStreaks = new int[0];
+    private long totalVictimizations;
+    private long repeatVictimizations;
+    private long maxStarvationAge;
+    
+    // Asynchronous listener delivery, reported alongside the other metrics
+    private DeadlockEventDispatcher listenerDispatcher;
+    
+    public PerformanceTracker() {
+        totalDeadlocks = 0;
+        resolvedDeadlocks = 0;
+        preventedDeadlocks = 0;
+        resolutionStrategyCounts = new HashMap<>();
+        deadlockEvents = new ArrayList<>();
+        totalResolutionTime = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        
+        // Initialize observable properties for real-time monitoring
+        deadlockDetected = new StateProperty<>(false);
+        deadlockedProcessCount = new StateProperty<>(0);
+        systemStatus = new StateProperty<>("System initialized");
+        monitoringActive = false;
+    }
+    
+    /**
+     * Records a deadlock detection event.
+     * 
+     * @param deadlockedProcesses The list of processes involved in the deadlock
+     * @return The created DeadlockEvent
+     */
+    public DeadlockEvent recordDeadlockDetection(List<Integer> deadlockedProcesses) {
+        totalDeadlocks++;
+        DeadlockEvent event = new DeadlockEvent(deadlockedProcesses, LocalDateTime.now(clock));
+        deadlockEvents.add(event);
+        
+        // Update real-time monitoring properties
+        deadlockDetected.set(true);
+        deadlockedProcessCount.set(deadlockedProcesses.size());
+        systemStatus.set("Deadlock detected involving " + deadlockedProcesses.size() + " processes");
+        
+        return event;
+    }
+    
+    /**
+     * Records a deadlock resolution event.
+     * 
+     * @param event The deadlock event that was resolved
+     * @param strategy The strategy used to resolve the deadlock
+     */
+    public void recordDeadlockResolution(DeadlockEvent event, String strategy) {
+        if (event != null) {
+            event.setResolved(true);
+            event.setResolutionStrategy(strategy);
+            event.setResolutionTime(LocalDateTime.now(clock));
+            
+            // Calculate resolution time
+            Duration duration = Duration.between(event.getDetectionTime(), event.getResolutionTime());
+            long resolutionTimeMs = duration.toMillis();
+            totalResolutionTime += resolutionTimeMs;
+            event.setResolutionDurationMs(resolutionTimeMs);
+            
+            // Update counts
+            resolvedDeadlocks++;
+            resolutionStrategyCounts.put(strategy, resolutionStrategyCounts.getOrDefault(strategy, 0) + 1);
+            
+            // Update real-time monitoring properties
+            deadlockDetected.set(false);
+            deadlockedProcessCount.set(0);
+            systemStatus.set("Deadlock resolved using " + strategy);
+        }
+    }
+    
+    /**
+     * Records a deadlock prevention event.
+     * 
+     * @param strategy The strategy used to prevent the deadlock
+     */
+    public void recordDeadlockPrevention(String strategy) {
+        preventedDeadlocks++;
+        resolutionStrategyCounts.put(strategy, resolutionStrategyCounts.getOrDefault(strategy, 0) + 1);
+        
+        // Update real-time monitoring properties
+        systemStatus.set("Deadlock prevented using " + strategy);
+    }
+    
+    /**
+     * Records that a process was chosen as a deadlock victim.
+     * 
+     * @param processId The victim
+     * @param streak The number of times it has been chosen since it last completed
+     * @param age The number of resolutions since that streak began
+     */
+    public void recordVictimization(int processId, int streak, long age) {
+        ensureProcessCapacity(processId + 1);
+        victimizationCounts[processId]++;
+        currentVictimStreaks[processId] = streak;
+        longestVictimStreaks[processId] = Math.max(longestVictimStreaks[processId], streak);
+        totalVictimizations++;
+        if (streak > 1) {
+            repeatVictimizations++;
+        }
+        maxStarvationAge = Math.max(maxStarvationAge, age);
+    }
+    
+    /**
+     * Records that a process completed after being victimized, ending its streak.
+     * 
+     * @param processId The process
+     * @param age The number of resolutions its streak lasted
+     */
+    public void recordStarvationEnded(int processId, long age) {
+        ensureProcessCapacity(processId + 1);
+        currentVictimStreaks[processId] = 0;
+        maxStarvationAge = Math.max(maxStarvationAge, age);
+    }
+    
+    private void ensureProcessCapacity(int numProcesses) {
+        if (victimizationCounts.length < numProcesses) {
+            int capacity = Math.max(numProcesses, victimizationCounts.length * 2);
+            victimizationCounts = Arrays.copyOf(victimizationCounts, capacity);
+            currentVictimStreaks = Arrays.copyOf(currentVictimStreaks, capacity);
+            longestVictimStreaks = Arrays.copyOf(longestVictimStreaks, capacity);
+        }
+    }
+    
+    /**
+     * Updates the system status message.
+     * 
+     * @param status The new status message
+     */
+    public void updateSystemStatus(String status) {
+        systemStatus.set(status);
+    }
+    
+    /**
+     * Starts real-time monitoring of the system.
+     */
+    public void startMonitoring() {
+        monitoringActive = true;
+        systemStatus.set("Real-time monitoring active");
+    }
+    
+    /**
+     * Stops real-time monitoring of the system.
+     */
+    public void stopMonitoring() {
+        monitoringActive = false;
+        systemStatus.set("Real-time monitoring stopped");
+    }
+    
+    /**
+     * Checks if real-time monitoring is active.
+     * 
+     * @return true if monitoring is active, false otherwise
+     */
+    public boolean isMonitoringActive() {
+        return monitoringActive;
+    }
+    
+    /**
+     * Gets the total number of deadlocks detected.
+     * 
+     * @return The total number of deadlocks
+     */
+    public int getTotalDeadlocks() {
+        return totalDeadlocks;
+    }
+    
+    /**
+     * Gets the number of resolved deadlocks.
+     * 
+     * @return The number of resolved deadlocks
+     */
+    public int getResolvedDeadlocks() {
+        return resolvedDeadlocks;
+    }
+    
+    /**
+     * Gets the number of prevented deadlocks.
+     * 
+     * @return The number of prevented deadlocks
+     */
+    public int getPreventedDeadlocks() {
+        return preventedDeadlocks;
+    }
+    
+    /**
+     * Gets the list of deadlock events.
+     * 
+     * @return The list of deadlock events
+     */
+    public List<DeadlockEvent> getDeadlockEvents() {
+        return new ArrayList<>(deadlockEvents);
+    }
+    
+    /**
+     * Gets the counts of resolution strategies used.
+     * 
+     * @return A map of strategy names to counts
+     */
+    public Map<String, Integer> getResolutionStrategyCounts() {
+        return new HashMap<>(resolutionStrategyCounts);
+    }
+    
+    /**
+     * Gets the average resolution time in milliseconds.
+     * 
+     * @return The average resolution time, or 0 if no deadlocks have been resolved
+     */
+    public double getAverageResolutionTime() {
+        return resolvedDeadlocks > 0 ? (double) totalResolutionTime / resolvedDeadlocks : 0;
+    }
+    
+    /**
+     * Gets the number of times a process has been chosen as a victim.
+     * 
+     * @param processId The process
+     * @return Its victimization count
+     */
+    public int getVictimizationCount(int processId) {
+        return processId < victimizationCounts.length ? victimizationCounts[processId] : 0;
+    }
+    
+    /**
+     * Gets the number of times a process has been chosen as a victim since it
+     * last completed.
+     * 
+     * @param processId The process
+     * @return Its current streak, 0 if it is not starving
+     */
+    public int getCurrentVictimStreak(int processId) {
+        return processId < currentVictimStreaks.length ? currentVictimStreaks[processId] : 0;
+    }
+    
+    /**
+     * Gets the longest run of victimizations a process has suffered without completing.
+     * 
+     * @param processId The process
+     * @return Its longest streak
+     */
+    public int getLongestVictimStreak(int processId) {
+        return processId < longestVictimStreaks.length ? longestVictimStreaks[processId] : 0;
+    }
+    
+    public long getTotalVictimizations() {
+        return totalVictimizations;
+    }
+    
+    /**
+     * Gets the number of victimizations that hit a process already victimized
+     * since it last completed, the main symptom of starvation.
+     * 
+     * @return The number of repeat victimizations
+     */
+    public long getRepeatVictimizations() {
+        return repeatVictimizations;
+    }
+    
+    /**
+     * Gets the longest a victimization streak has lasted, in resolutions.
+     * 
+     * @return The maximum starvation age
+     */
+    public long getMaxStarvationAge() {
+        return maxStarvationAge;
+    }
+    
+    /**
+     * Gets the number of processes currently in a victimization streak.
+     * 
+     * @return The number of starving processes
+     */
+    public int getStarvingProcessCount() {
+        int count = 0;
+        for (int streak : currentVictimStreaks) {
+            if (streak > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the deadlock detected property for observation.
+     * 
+     * @return The deadlock detected property
+     */
+    public StateProperty<Boolean> deadlockDetectedProperty() {
+        return deadlockDetected;
+    }
+    
+    /**
+     * Gets the deadlocked process count property for observation.
+     * 
+     * @return The deadlocked process count property
+     */
+    public StateProperty<Integer> deadlockedProcessCountProperty() {
+        return deadlockedProcessCount;
+    }
+    
+    /**
+     * Gets the system status property for observation.
+     * 
+     * @return The system status property
+     */
+    public StateProperty<String> systemStatusProperty() {
+        return systemStatus;
+    }
+    
+    /**
+     * Records a detection time measurement.
+     * 
+     * @param detectionTimeMs The time taken to detect a potential deadlock in milliseconds
+     */
+    public void recordDetectionTime(double detectionTimeMs) {
+        latencies[Operation.DETECT.ordinal()].record(Math.round(detectionTimeMs * 1_000_000));
+    }
+    
+    /**
+     * Records how long an engine operation took. Safe to call from any thread.
+     * 
+     * @param operation The operation
+     * @param nanos Its duration in nanoseconds
+     */
+    public void recordLatency(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+    
+    /**
+     * Gets the live latency histogram of an engine operation, in nanoseconds.
+     * Use its intervalSnapshot() for per-interval figures.
+     * 
+     * @param operation The operation
+     * @return Its histogram
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+    
+    /**
+     * Adds another tracker's operation latencies to this one's, e.g. to
+     * report on several engines together.
+     * 
+     * @param other The tracker to merge in; it is not changed
+     */
+    public void mergeLatencies(PerformanceTracker other) {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].add(other.latencies[i]);
+        }
+    }
+    
+    /**
+     * Records a resource utilization measurement.
+     * 
+     * @param utilization The resource utilization as a decimal (0.0 to 1.0)
+     */
+    public void recordResourceUtilization(double utilization) {
+        if (utilization >= 0.0 && utilization <= 1.0) {
+            utilizationHistory.add(utilization);
+            resourceUtilization = utilization;
+        }
+    }
+    
+    /**
+     * Updates the deadlock frequency based on recent activity.
+     * 
+     * @param deadlocksInTimeframe Number of deadlocks in the timeframe
+     * @param timeframeMinutes The timeframe in minutes
+     */
+    public void updateDeadlockFrequency(int deadlocksInTimeframe, double timeframeMinutes) {
+        if (timeframeMinutes > 0) {
+            deadlockFrequency = deadlocksInTimeframe / timeframeMinutes;
+        }
+    }
+    
+    /**
+     * Gets the average detection time in milliseconds.
+     * 
+     * @return The average detection time
+     */
+    public double getAverageDetectionTime() {
+        return latencies[Operation.DETECT.ordinal()].getMean() / 1_000_000;
+    }
+    
+    /**
+     * Gets the maximum detection time in milliseconds.
+     * 
+     * @return The maximum detection time
+     */
+    public double getMaxDetectionTime() {
+        return latencies[Operation.DETECT.ordinal()].getMax() / 1_000_000.0;
+    }
+    
+    /**
+     * Gets the deadlock frequency (deadlocks per minute).
+     * 
+     * @return The deadlock frequency
+     */
+    public double getDeadlockFrequency() {
+        return deadlockFrequency;
+    }
+    
+    /**
+     * Gets the current resource utilization (0.0 to 1.0): the fraction of all
+     * resource units allocated right now if the engine's resource usage is
+     * attached, otherwise the last recorded measurement.
+     * 
+     * @return The resource utilization
+     */
+    public double getResourceUtilization() {
+        return resourceUsage != null ? resourceUsage.getUtilization() : resourceUtilization;
+    }
+    
+    /**
+     * Attaches the engine's live resource usage, which utilization and
+     * contention figures are then read from.
+     * 
+     * @param resourceUsage The engine's resource usage
+     */
+    public void setResourceUsage(ResourceUsage resourceUsage) {
+        this.resourceUsage = resourceUsage;
+    }
+    
+    public ResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+    
+    /**
+     * Gets the history of resource utilization measurements.
+     * 
+     * @return The list of resource utilization measurements
+     */
+    public List<Double> getUtilizationHistory() {
+        return new ArrayList<>(utilizationHistory);
+    }
+    
+    /**
+     * Sets the clock used to timestamp deadlock detections and resolutions.
+     * Resolution times and deadlock frequencies are then measured in that
+     * clock's time, e.g. virtual time during a discrete-event simulation.
+     * 
+     * @param clock The clock to use
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+    
+    public Clock getClock() {
+        return clock;
+    }
+    
+    /**
+     * Sets the dispatcher whose lag and drop counters are included in reports.
+     * 
+     * @param listenerDispatcher The engine's listener dispatcher
+     */
+    public void setListenerDispatcher(DeadlockEventDispatcher listenerDispatcher) {
+        this.listenerDispatcher = listenerDispatcher;
+    }
+    
+    public DeadlockEventDispatcher getListenerDispatcher() {
+        return listenerDispatcher;
+    }
+    
+    /**
+     * Resets all performance metrics.
+     */
+    public void resetMetrics() {
+        totalDeadlocks = 0;
+        resolvedDeadlocks = 0;
+        preventedDeadlocks = 0;
+        resolutionStrategyCounts.clear();
+        deadlockEvents.clear();
+        totalResolutionTime = 0;
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        utilizationHistory.clear();
+        deadlockFrequency = 0.0;
+        resourceUtilization = 0.0;
+        if (resourceUsage != null) {
+            resourceUsage.reset();
+        }
+        victimizationCounts = new int[0];
+        currentVictimStreaks = new int[0];
+        longestVictimStreaks = new int[0];
+        totalVictimizations = 0;
+        repeatVictimizations = 0;
+        maxStarvationAge = 0;
+        
+        // Reset observable properties
+        deadlockDetected.set(false);
+        deadlockedProcessCount.set(0);
+        systemStatus.set("Performance metrics reset");
+    }
+    
+    /**
+     * Generates a performance report as a formatted string.
+     * 
+     * @return A formatted performance report
+     */
+    public String generatePerformanceReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("DEADLOCK TOOLKIT PERFORMANCE REPORT\n");
+        report.append("===================================\n\n");
+        
+        report.append("DEADLOCK STATISTICS:\n");
+        report.append("Total Deadlocks Detected: ").append(totalDeadlocks).append("\n");
+        report.append("Deadlocks Resolved: ").append(resolvedDeadlocks).append("\n");
+        report.append("Deadlocks Prevented: ").append(preventedDeadlocks).append("\n");
+        report.append("Deadlock Frequency: ").append(String.format("%.2f", deadlockFrequency)).append(" per minute\n\n");
+        
+        report.append("PERFORMANCE METRICS:\n");
+        report.append("Average Detection Time: ").append(String.format("%.2f", getAverageDetectionTime())).append(" ms\n");
+        report.append("Maximum Detection Time: ").append(String.format("%.2f", getMaxDetectionTime())).append(" ms\n");
+        report.append("Average Resolution Time: ").append(String.format("%.2f", getAverageResolutionTime())).append(" ms\n");
+        report.append("Resource Utilization: ").append(String.format("%.1f", getResourceUtilization() * 100)).append("%");
+        if (resourceUsage != null) {
+            report.append(" (").append(String.format("%.1f", resourceUsage.getTimeWeightedUtilization() * 100))
+                  .append("% time-weighted)");
+        }
+        report.append("\n\n");
+        
+        boolean anyLatency = false;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies[operation.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            if (!anyLatency) {
+                report.append("OPERATION LATENCY (us):\n");
+                anyLatency = true;
+            }
+            report.append(String.format("%-18s n=%d p50=%.1f p99=%.1f p999=%.1f max=%.1f%n", operation.getLabel() + ":",
+                histogram.getCount(), histogram.getP50() / 1e3, histogram.getP99() / 1e3,
+                histogram.getP999() / 1e3, histogram.getMax() / 1e3));
+        }
+        if (anyLatency) {
+            report.append("\n");
+        }
+        
+        if (resourceUsage != null && resourceUsage.getNumResources() > 0) {
+            report.append("RESOURCES:\n");
+            for (int j = 0; j < resourceUsage.getNumResources(); j++) {
+                report.append(String.format("R%d: %d/%d units (%.1f%%, %.1f%% time-weighted), queue %d (peak %d), %d contended%n",
+                    j, resourceUsage.getAllocated(j), resourceUsage.getCapacity(j),
+                    resourceUsage.getUtilization(j) * 100, resourceUsage.getTimeWeightedUtilization(j) * 100,
+                    resourceUsage.getQueueDepth(j), resourceUsage.getPeakQueueDepth(j), resourceUsage.getContention(j)));
+            }
+            report.append("\n");
+        }
+        
+        report.append("RESOLUTION STRATEGIES:\n");
+        for (Map.Entry<String, Integer> entry : resolutionStrategyCounts.entrySet()) {
+            report.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+        }
+        
+        if (totalVictimizations > 0) {
+            report.append("\nSTARVATION:\n");
+            report.append("Victimizations: ").append(totalVictimizations)
+                  .append(" (").append(repeatVictimizations).append(" repeat)\n");
+            report.append("Starving Processes: ").append(getStarvingProcessCount()).append("\n");
+            report.append("Max Starvation Age: ").append(maxStarvationAge).append(" resolutions\n");
+            for (int p = 0; p < victimizationCounts.length; p++) {
+                if (victimizationCounts[p] > 0) {
+                    report.append("P").append(p).append(": ").append(victimizationCounts[p])
+                          .append(" times, longest streak ").append(longestVictimStreaks[p]).append("\n");
+                }
+            }
+        }
+        
+        if (listenerDispatcher != null) {
+            report.append("\nLISTENER DISPATCH:\n");
+            report.append("Events Published: ").append(listenerDispatcher.getPublishedEvents()).append("\n");
+            report.append("Events Delivered: ").append(listenerDispatcher.getDeliveredEvents())
+                  .append(" in ").append(listenerDispatcher.getDeliveredBatches()).append(" batches\n");
+            report.append("Events Dropped: ").append(listenerDispatcher.getDroppedEvents()).append("\n");
+            report.append("Current Lag: ").append(listenerDispatcher.getLag())
+                  .append(" (max ").append(listenerDispatcher.getMaxLag()).append(")\n");
+        }
+        
+        return report.toString();
+    }
+    
+    /**
+     * Represents a deadlock event with detection and resolution information.
+     */
+    public static class DeadlockEvent {
+        private List<Integer> involvedProcesses;
+        private LocalDateTime detectionTime;
+        private LocalDateTime resolutionTime;
+        private boolean resolved;
+        private String resolutionStrategy;
+        private long resolutionDurationMs;
+        
+        public DeadlockEvent(List<Integer> involvedProcesses) {
+            this(involvedProcesses, LocalDateTime.now());
+        }
+        
+        public DeadlockEvent(List<Integer> involvedProcesses, LocalDateTime detectionTime) {
+            this.involvedProcesses = new ArrayList<>(involvedProcesses);
+            this.detectionTime = detectionTime;
+            this.resolved = false;
+            this.resolutionStrategy = "";
+        }
+        
+        public List<Integer> getInvolvedProcesses() {
+            return involvedProcesses;
+        }
+        
+        public LocalDateTime getDetectionTime() {
+            return detectionTime;
+        }
+        
+        public LocalDateTime getResolutionTime() {
+            return resolutionTime;
+        }
+        
+        public void setResolutionTime(LocalDateTime resolutionTime) {
+            this.resolutionTime = resolutionTime;
+        }
+        
+        public boolean isResolved() {
+            return resolved;
+        }
+        
+        public void setResolved(boolean resolved) {
+            this.resolved = resolved;
+        }
+        
+        public String getResolutionStrategy() {
+            return resolutionStrategy;
+        }
+        
+        public void setResolutionStrategy(String resolutionStrategy) {
+            this.resolutionStrategy = resolutionStrategy;
+        }
+        
+        public long getResolutionDurationMs() {
+            return resolutionDurationMs;
+        }
+        
+        public void setResolutionDurationMs(long resolutionDurationMs) {
+            this.resolutionDurationMs = resolutionDurationMs;
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package deadlocktoolkit.core;
 
 import java.util.*;
+import java.util.function.LongSupplier;
 
 public class ResourceAllocationGraph implements Cloneable {
     private int numProcesses;
     private int numResources;
     private int[][] allocationEdges; // Process -> Resource
     private int[][] requestEdges;    // Resource -> Process
+    // When each request edge appeared, in clock nanos; allocated on first use
+    private long[][] requestTimes;   // Resource -> Process
+    private LongSupplier clock = System::nanoTime;
+    // While changes are tracked: processes that gained or lost a request edge,
+    // and resources that gained or lost a holder
+    private boolean[] requestsChanged;
+    private boolean[] holdersChanged;
     
     public ResourceAllocationGraph(int numProcesses, int numResources) {
         this.numProcesses = numProcesses;
@@ -16,22 +24,108 @@ public class ResourceAllocationGraph implements Cloneable {
     }
     
     public void addRequest(int processId, int resourceId, int units) {
+        if (requestsChanged != null && (requestEdges[resourceId][processId] > 0) != (units > 0)) {
+            requestsChanged[processId] = true;
+        }
+        if (requestEdges[resourceId][processId] == 0 && units > 0) {
+            if (requestTimes == null) {
+                requestTimes = new long[numResources][numProcesses];
+            }
+            requestTimes[resourceId][processId] = clock.getAsLong();
+        }
         requestEdges[resourceId][processId] = units;
     }
     
     public void addAllocation(int processId, int resourceId, int units) {
+        if (holdersChanged != null && (allocationEdges[processId][resourceId] > 0) != (units > 0)) {
+            holdersChanged[resourceId] = true;
+        }
         allocationEdges[processId][resourceId] = units;
     }
     
     public void removeRequest(int processId, int resourceId) {
+        if (requestsChanged != null && requestEdges[resourceId][processId] > 0) {
+            requestsChanged[processId] = true;
+        }
         requestEdges[resourceId][processId] = 0;
     }
     
+    /**
+     * Gets when a process started waiting for a resource. Growing an existing
+     * request does not reset its arrival time.
+     * 
+     * @param processId The waiting process
+     * @param resourceId The requested resource
+     * @return The arrival time in clock nanos, or -1 if there is no request
+     *         edge or it was recorded before this graph was copied
+     */
+    public long getRequestTime(int processId, int resourceId) {
+        if (requestEdges[resourceId][processId] == 0 || requestTimes == null) {
+            return -1;
+        }
+        return requestTimes[resourceId][processId];
+    }
+    
+    /**
+     * Sets the clock that stamps new request edges.
+     * 
+     * @param clock A nanosecond clock
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * Stamps every request edge with the current clock time, as if each wait
+     * started now. Copies don't keep arrival times, so a graph restored from
+     * a snapshot is restamped before its waits can time out.
+     */
+    void restampRequests() {
+        long now = clock.getAsLong();
+        for (int j = 0; j < numResources; j++) {
+            for (int p = 0; p < numProcesses; p++) {
+                if (requestEdges[j][p] > 0) {
+                    if (requestTimes == null) {
+                        requestTimes = new long[numResources][numProcesses];
+                    }
+                    requestTimes[j][p] = now;
+                }
+            }
+        }
+    }
+    
     public void removeAllocation(int processId, int resourceId, int units) {
+        boolean held = allocationEdges[processId][resourceId] > 0;
         allocationEdges[processId][resourceId] -= units;
         if (allocationEdges[processId][resourceId] < 0) {
             allocationEdges[processId][resourceId] = 0;
         }
+        if (holdersChanged != null && held && allocationEdges[processId][resourceId] == 0) {
+            holdersChanged[resourceId] = true;
+        }
+    }
+    
+    /**
+     * Starts recording which processes' request edges and which resources'
+     * holders change, for {@link WaitForGraph#update}. Calling it again
+     * forgets the changes recorded so far.
+     */
+    void trackChanges() {
+        requestsChanged = new boolean[numProcesses];
+        holdersChanged = new boolean[numResources];
+    }
+    
+    void stopTrackingChanges() {
+        requestsChanged = null;
+        holdersChanged = null;
+    }
+    
+    boolean[] getRequestsChanged() {
+        return requestsChanged;
+    }
+    
+    boolean[] getHoldersChanged() {
+        return holdersChanged;
     }
     
     public boolean detectDeadlock() {
@@ -118,6 +212,10 @@ public class ResourceAllocationGraph implements Cloneable {
             ResourceAllocationGraph cloned = (ResourceAllocationGraph) super.clone();
             cloned.allocationEdges = new int[numProcesses][numResources];
             cloned.requestEdges = new int[numResources][numProcesses];
+            // Snapshots keep the edges but not their arrival times; restoring restamps them
+            cloned.requestTimes = null;
+            cloned.requestsChanged = null;
+            cloned.holdersChanged = null;
             
             for (int i = 0; i < numProcesses; i++) {
                 System.arraycopy(allocationEdges[i], 0, cloned.allocationEdges[i], 0, numResources);
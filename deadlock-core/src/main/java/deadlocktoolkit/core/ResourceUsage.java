@@ -0,0 +1,212 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * Utilization and contention of each resource type, kept up to date by
+ * DeadlockEngine on every allocation and release instead of being recomputed
+ * from the allocation matrix.
+ *
+ * Besides the units in use, each resource integrates its allocation over
+ * time: every change adds units held times time elapsed to a running area,
+ * so the time-weighted utilization is the mean fraction of capacity in use
+ * since the last reset, measured on the engine clock. Contention counts the
+ * requests that could not be granted at once and were denied or had to wait.
+ * Updated on the engine thread; other threads may read slightly stale values.
+ */
+public final class ResourceUsage {
+    private final int[] capacity;
+    private final int[] allocated;
+    private final long[] area; // unit-nanoseconds
+    private final long[] lastChange;
+    private final long[] contention;
+    private final int[] peakQueueDepth;
+    private final IntUnaryOperator queueDepth;
+    private final LongSupplier clock;
+    private int totalCapacity;
+    private int totalAllocated;
+    private long startNanos;
+    
+    /**
+     * Creates the usage of a system with nothing allocated.
+     *
+     * @param capacity Units of each resource
+     * @param queueDepth Gets the number of requests parked on a resource, including all-or-nothing requests that cover it
+     * @param clock The engine clock, in nanoseconds
+     */
+    ResourceUsage(int[] capacity, IntUnaryOperator queueDepth, LongSupplier clock) {
+        this.capacity = capacity.clone();
+        this.allocated = new int[capacity.length];
+        this.area = new long[capacity.length];
+        this.lastChange = new long[capacity.length];
+        this.contention = new long[capacity.length];
+        this.peakQueueDepth = new int[capacity.length];
+        this.queueDepth = queueDepth;
+        this.clock = clock;
+        for (int units : capacity) {
+            totalCapacity += units;
+        }
+        startNanos = clock.getAsLong();
+        Arrays.fill(lastChange, startNanos);
+    }
+    
+    void onAllocate(int resourceId, int units) {
+        advance(resourceId, clock.getAsLong());
+        allocated[resourceId] += units;
+        totalAllocated += units;
+    }
+    
+    void onRelease(int resourceId, int units) {
+        advance(resourceId, clock.getAsLong());
+        allocated[resourceId] -= units;
+        totalAllocated -= units;
+    }
+    
+    /**
+     * Counts a request for a resource that could not be granted right away.
+     * Call it after the request is parked, if it is, so the peak queue depth
+     * includes it.
+     */
+    void onContention(int resourceId) {
+        contention[resourceId]++;
+        peakQueueDepth[resourceId] = Math.max(peakQueueDepth[resourceId], queueDepth.applyAsInt(resourceId));
+    }
+    
+    /**
+     * Re-reads the units in use from an allocation matrix after a change that
+     * bypassed onAllocate and onRelease, such as a termination or a step
+     * through the history.
+     */
+    void resync(int[][] allocation) {
+        long now = clock.getAsLong();
+        totalAllocated = 0;
+        for (int j = 0; j < allocated.length; j++) {
+            advance(j, now);
+            allocated[j] = 0;
+            for (int[] row : allocation) {
+                allocated[j] += row[j];
+            }
+            totalAllocated += allocated[j];
+        }
+    }
+    
+    private void advance(int resourceId, long now) {
+        area[resourceId] += allocated[resourceId] * (now - lastChange[resourceId]);
+        lastChange[resourceId] = now;
+    }
+    
+    /**
+     * Restarts the time-weighted averages, contention counts and peak queue
+     * depths from now. Units in use are kept.
+     */
+    public void reset() {
+        startNanos = clock.getAsLong();
+        Arrays.fill(area, 0);
+        Arrays.fill(lastChange, startNanos);
+        Arrays.fill(contention, 0);
+        Arrays.fill(peakQueueDepth, 0);
+    }
+    
+    public int getNumResources() {
+        return capacity.length;
+    }
+    
+    public int getCapacity(int resourceId) {
+        return capacity[resourceId];
+    }
+    
+    public int getAllocated(int resourceId) {
+        return allocated[resourceId];
+    }
+    
+    /**
+     * Gets the fraction of a resource's units in use right now.
+     *
+     * @param resourceId The resource
+     * @return From 0.0 to 1.0; 0.0 for a resource with no units
+     */
+    public double getUtilization(int resourceId) {
+        return capacity[resourceId] > 0 ? (double) allocated[resourceId] / capacity[resourceId] : 0.0;
+    }
+    
+    /**
+     * Gets the fraction of all units, across resource types, in use right now.
+     *
+     * @return From 0.0 to 1.0
+     */
+    public double getUtilization() {
+        return totalCapacity > 0 ? (double) totalAllocated / totalCapacity : 0.0;
+    }
+    
+    /**
+     * Gets the mean fraction of a resource's units in use since the last reset.
+     *
+     * @param resourceId The resource
+     * @return From 0.0 to 1.0; the current utilization if no time has passed
+     */
+    public double getTimeWeightedUtilization(int resourceId) {
+        long now = clock.getAsLong();
+        long elapsed = now - startNanos;
+        if (elapsed <= 0 || capacity[resourceId] == 0) {
+            return getUtilization(resourceId);
+        }
+        double used = area[resourceId] + (double) allocated[resourceId] * (now - lastChange[resourceId]);
+        return used / ((double) capacity[resourceId] * elapsed);
+    }
+    
+    /**
+     * Gets the mean fraction of all units in use since the last reset.
+     *
+     * @return From 0.0 to 1.0; the current utilization if no time has passed
+     */
+    public double getTimeWeightedUtilization() {
+        long now = clock.getAsLong();
+        long elapsed = now - startNanos;
+        if (elapsed <= 0 || totalCapacity == 0) {
+            return getUtilization();
+        }
+        double used = 0;
+        for (int j = 0; j < allocated.length; j++) {
+            used += area[j] + (double) allocated[j] * (now - lastChange[j]);
+        }
+        return used / ((double) totalCapacity * elapsed);
+    }
+    
+    public int getQueueDepth(int resourceId) {
+        return queueDepth.applyAsInt(resourceId);
+    }
+    
+    /**
+     * Gets the queue depth summed over all resources. An all-or-nothing
+     * request counts once for each resource it asks for.
+     */
+    public int getTotalQueueDepth() {
+        int depth = 0;
+        for (int j = 0; j < capacity.length; j++) {
+            depth += queueDepth.applyAsInt(j);
+        }
+        return depth;
+    }
+    
+    public int getPeakQueueDepth(int resourceId) {
+        return peakQueueDepth[resourceId];
+    }
+    
+    /**
+     * Gets the number of requests for a resource that were denied or had to
+     * wait since the last reset.
+     */
+    public long getContention(int resourceId) {
+        return contention[resourceId];
+    }
+    
+    public long getTotalContention() {
+        long total = 0;
+        for (long count : contention) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,416 @@
+package deadlocktoolkit.core;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-resource queues of parked resource requests.
+ *
+ * A request that cannot be granted right away is parked in the queue of the
+ * resource it asks for instead of being denied. When units are released the
+ * engine walks the queues in fairness order and re-admits every waiter that is
+ * safe to grant. Waiters whose future was cancelled by the client, or whose
+ * wait timed out, are dropped the next time their queue is scanned, or when
+ * the engine sweeps them out with removeNotLive before looking for deadlocks.
+ *
+ * All-or-nothing requests for a whole vector of resources don't belong to any
+ * one resource and wait in a separate bundle queue, ordered by the same policy.
+ */
+public class ResourceWaitQueues {
+    
+    public enum FairnessPolicy {
+        /** Admit waiters in arrival order. */
+        FIFO,
+        /** Admit higher-priority processes first, arrival order among equals. */
+        PRIORITY
+    }
+    
+    private static final Comparator<PendingRequest> PRIORITY_ORDER =
+        Comparator.comparingInt((PendingRequest r) -> -r.priority).thenComparingLong(r -> r.sequence);
+    
+    private final FairnessPolicy policy;
+    private final List<Queue<PendingRequest>> queues;
+    private final Queue<PendingRequest> bundles;
+    // Parked all-or-nothing requests covering each resource
+    private final int[] bundleDepth;
+    private long nextSequence;
+    private int waiting;
+    
+    public ResourceWaitQueues(int numResources, FairnessPolicy policy) {
+        this.policy = policy;
+        this.queues = new ArrayList<>(numResources);
+        for (int j = 0; j < numResources; j++) {
+            queues.add(newQueue(policy));
+        }
+        this.bundles = newQueue(policy);
+        this.bundleDepth = new int[numResources];
+    }
+    
+    private static Queue<PendingRequest> newQueue(FairnessPolicy policy) {
+        return policy == FairnessPolicy.FIFO ? new ArrayDeque<>() : new PriorityQueue<>(PRIORITY_ORDER);
+    }
+    
+    /**
+     * Parks a request in the queue of its resource.
+     *
+     * @return The pending request, whose future completes when it is admitted or abandoned
+     */
+    public PendingRequest enqueue(int processId, int resourceId, int units, int priority) {
+        PendingRequest request = new PendingRequest(processId, resourceId, units, priority, nextSequence++, false);
+        queues.get(resourceId).add(request);
+        waiting++;
+        return request;
+    }
+    
+    /**
+     * Parks an all-or-nothing request for a vector of resources in the bundle
+     * queue. The request's resource is the first one it asks for.
+     *
+     * @param processId The requesting process
+     * @param units Units requested of each resource; not copied
+     * @param priority The process's priority
+     * @return The pending request, whose future completes when it is admitted or abandoned
+     */
+    public PendingRequest enqueueBundle(int processId, int[] units, int priority) {
+        int first = 0;
+        while (units[first] == 0) {
+            first++;
+        }
+        PendingRequest request = new PendingRequest(processId, first, units[first], priority, nextSequence++, false, units);
+        bundles.add(request);
+        countBundle(request, 1);
+        waiting++;
+        return request;
+    }
+    
+    /**
+     * Parks a request to win back units that were preempted from the process.
+     *
+     * @return The pending request, flagged as a re-acquisition
+     */
+    PendingRequest enqueueReacquire(int processId, int resourceId, int units, int priority) {
+        PendingRequest request = new PendingRequest(processId, resourceId, units, priority, nextSequence++, true);
+        queues.get(resourceId).add(request);
+        waiting++;
+        return request;
+    }
+    
+    /**
+     * Checks whether a process has a request parked on a resource.
+     */
+    public boolean contains(int processId, int resourceId) {
+        for (PendingRequest request : queues.get(resourceId)) {
+            if (request.processId == processId) {
+                return true;
+            }
+        }
+        for (PendingRequest request : bundles) {
+            if (request.processId == processId && request.bundle[resourceId] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Checks whether a process is waiting to win back preempted units of a resource.
+     */
+    public boolean isReacquiring(int processId, int resourceId) {
+        for (PendingRequest request : queues.get(resourceId)) {
+            if (request.processId == processId && request.reacquire) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parks an existing request again, keeping its arrival sequence and future.
+     */
+    void requeue(PendingRequest request) {
+        (request.bundle != null ? bundles : queues.get(request.resourceId)).add(request);
+        countBundle(request, 1);
+        waiting++;
+    }
+    
+    private void countBundle(PendingRequest request, int delta) {
+        if (request.bundle != null) {
+            for (int j = 0; j < bundleDepth.length; j++) {
+                if (request.bundle[j] > 0) {
+                    bundleDepth[j] += delta;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Offers every waiter of a resource, in fairness order, to the admission
+     * callback. Waiters it accepts are removed and returned, except ones that
+     * are no longer live (cancelled by the client or timed out); the rest stay parked.
+     * Futures are not completed here so callbacks can't re-enter the engine mid-scan.
+     *
+     * @param resourceId The resource whose queue to scan
+     * @param admission Returns true if it granted the request
+     * @param admitted Receives the admitted requests
+     */
+    public void admit(int resourceId, Admission admission, List<PendingRequest> admitted) {
+        admit(queues.get(resourceId), admission, admitted);
+    }
+    
+    /**
+     * Offers every parked all-or-nothing request, in fairness order, to the
+     * admission callback, in the same way as admit.
+     */
+    public void admitBundles(Admission admission, List<PendingRequest> admitted) {
+        admit(bundles, admission, admitted);
+    }
+    
+    private void admit(Queue<PendingRequest> queue, Admission admission, List<PendingRequest> admitted) {
+        if (queue.isEmpty()) {
+            return;
+        }
+        
+        if (policy == FairnessPolicy.FIFO) {
+            Iterator<PendingRequest> it = queue.iterator();
+            while (it.hasNext()) {
+                PendingRequest request = it.next();
+                if (admission.tryAdmit(request)) {
+                    it.remove();
+                    countBundle(request, -1);
+                    waiting--;
+                    if (request.isLive()) {
+                        admitted.add(request);
+                    }
+                }
+            }
+        } else {
+            // PriorityQueue iteration is unordered, so drain in order and re-park the rest
+            List<PendingRequest> stillWaiting = new ArrayList<>();
+            PendingRequest request;
+            while ((request = queue.poll()) != null) {
+                if (admission.tryAdmit(request)) {
+                    countBundle(request, -1);
+                    waiting--;
+                    if (request.isLive()) {
+                        admitted.add(request);
+                    }
+                } else {
+                    stillWaiting.add(request);
+                }
+            }
+            queue.addAll(stillWaiting);
+        }
+    }
+    
+    /**
+     * Removes every request parked by a process.
+     *
+     * @param processId The process whose requests to remove
+     * @return The removed requests
+     */
+    public List<PendingRequest> removeProcess(int processId) {
+        List<PendingRequest> removed = new ArrayList<>();
+        for (Queue<PendingRequest> queue : queues) {
+            remove(queue, processId, -1, removed);
+        }
+        remove(bundles, processId, -1, removed);
+        return removed;
+    }
+    
+    /**
+     * Removes the requests a process has parked on one resource, including
+     * all-or-nothing requests that cover it.
+     *
+     * @param processId The process whose requests to remove
+     * @param resourceId The resource
+     * @return The removed requests
+     */
+    public List<PendingRequest> removeRequests(int processId, int resourceId) {
+        List<PendingRequest> removed = new ArrayList<>();
+        remove(queues.get(resourceId), processId, resourceId, removed);
+        remove(bundles, processId, resourceId, removed);
+        return removed;
+    }
+    
+    private void remove(Queue<PendingRequest> queue, int processId, int resourceId, List<PendingRequest> removed) {
+        Iterator<PendingRequest> it = queue.iterator();
+        while (it.hasNext()) {
+            PendingRequest request = it.next();
+            if (request.processId == processId && (resourceId < 0 || request.getUnits(resourceId) > 0)) {
+                it.remove();
+                countBundle(request, -1);
+                waiting--;
+                removed.add(request);
+            }
+        }
+    }
+    
+    /**
+     * Removes every parked request that is no longer live: cancelled by the
+     * client or timed out.
+     *
+     * @return The removed requests
+     */
+    public List<PendingRequest> removeNotLive() {
+        List<PendingRequest> removed = new ArrayList<>();
+        if (waiting == 0) {
+            return removed;
+        }
+        for (Queue<PendingRequest> queue : queues) {
+            removeNotLive(queue, removed);
+        }
+        removeNotLive(bundles, removed);
+        return removed;
+    }
+    
+    private void removeNotLive(Queue<PendingRequest> queue, List<PendingRequest> removed) {
+        Iterator<PendingRequest> it = queue.iterator();
+        while (it.hasNext()) {
+            PendingRequest request = it.next();
+            if (!request.isLive()) {
+                it.remove();
+                countBundle(request, -1);
+                waiting--;
+                removed.add(request);
+            }
+        }
+    }
+    
+    /**
+     * Removes and returns every parked request.
+     */
+    public List<PendingRequest> clear() {
+        List<PendingRequest> removed = new ArrayList<>(waiting);
+        for (Queue<PendingRequest> queue : queues) {
+            removed.addAll(queue);
+            queue.clear();
+        }
+        removed.addAll(bundles);
+        bundles.clear();
+        Arrays.fill(bundleDepth, 0);
+        waiting = 0;
+        return removed;
+    }
+    
+    public int getQueueDepth(int resourceId) {
+        return queues.get(resourceId).size();
+    }
+    
+    /**
+     * Gets the number of parked all-or-nothing requests that ask for units of
+     * a resource. They wait in the bundle queue, so getQueueDepth leaves them out.
+     */
+    public int getBundleDepth(int resourceId) {
+        return bundleDepth[resourceId];
+    }
+    
+    public int getBundleCount() {
+        return bundles.size();
+    }
+    
+    public int getWaitingCount() {
+        return waiting;
+    }
+    
+    public int getNumResources() {
+        return queues.size();
+    }
+    
+    public FairnessPolicy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Decides whether a parked request can leave the queue, granting it if so.
+     * Requests that are no longer live should simply be released.
+     */
+    public interface Admission {
+        boolean tryAdmit(PendingRequest request);
+    }
+    
+    /**
+     * A request parked until it can be granted safely.
+     */
+    public static class PendingRequest {
+        final int processId;
+        final int resourceId;
+        final int units;
+        final int priority;
+        final long sequence;
+        final boolean reacquire;
+        // Units of every resource for an all-or-nothing request, null otherwise
+        final int[] bundle;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        // Timeout timer handle, -1 if none; set by the engine
+        long timer = -1;
+        boolean expired;
+        
+        PendingRequest(int processId, int resourceId, int units, int priority, long sequence, boolean reacquire) {
+            this(processId, resourceId, units, priority, sequence, reacquire, null);
+        }
+        
+        PendingRequest(int processId, int resourceId, int units, int priority, long sequence, boolean reacquire,
+                       int[] bundle) {
+            this.processId = processId;
+            this.resourceId = resourceId;
+            this.units = units;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.reacquire = reacquire;
+            this.bundle = bundle;
+        }
+        
+        public int getProcessId() {
+            return processId;
+        }
+        
+        public int getResourceId() {
+            return resourceId;
+        }
+        
+        public int getUnits() {
+            return units;
+        }
+        
+        /**
+         * Whether this request wins back units preempted from the process.
+         * Such requests yield to every competing request for the resource.
+         */
+        public boolean isReacquire() {
+            return reacquire;
+        }
+        
+        /**
+         * Whether this is an all-or-nothing request for several resources.
+         */
+        public boolean isBundle() {
+            return bundle != null;
+        }
+        
+        /**
+         * Gets the units requested of a resource.
+         */
+        public int getUnits(int resourceId) {
+            if (bundle != null) {
+                return bundle[resourceId];
+            }
+            return resourceId == this.resourceId ? units : 0;
+        }
+        
+        public CompletableFuture<Boolean> getFuture() {
+            return future;
+        }
+        
+        /**
+         * Whether the request is still waiting: neither cancelled by the
+         * client nor timed out.
+         */
+        public boolean isLive() {
+            return !expired && !future.isDone();
+        }
+        
+        public boolean isExpired() {
+            return expired;
+        }
+    }
+}
@@ -1,17 +1,48 @@
 package deadlocktoolkit.core;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Generates predefined and random deadlock scenarios for testing and demonstration.
+ *
+ * Random choices come from a SplittableRandom, so a generator created with a
+ * seed (or reseeded with {@link #setSeed}) always produces the same scenario.
+ * If a {@link TraceRecorder} is attached, every command the generator issues
+ * is also written to the trace so the run can be replayed exactly.
  */
 public class ScenarioGenerator {
     private DeadlockEngine engine;
-    private Random random;
+    private SplittableRandom random;
+    private TraceRecorder recorder;
     
     public ScenarioGenerator(DeadlockEngine engine) {
         this.engine = engine;
-        this.random = new Random();
+        this.random = new SplittableRandom();
+    }
+    
+    public ScenarioGenerator(DeadlockEngine engine, long seed) {
+        this.engine = engine;
+        this.random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Restarts the random sequence from the given seed.
+     * @param seed The seed for subsequent random choices
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Attaches a recorder that receives every command the generator issues.
+     * @param recorder The trace recorder, or null to stop recording
+     */
+    public void setTraceRecorder(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+    
+    public TraceRecorder getTraceRecorder() {
+        return recorder;
     }
     
     /**
@@ -30,7 +61,7 @@ public class ScenarioGenerator {
             availableResources[i] = numProcesses; // Each resource has numProcesses units
         }
         
-        engine.initialize(numProcesses, numResources, availableResources);
+        initialize(numProcesses, numResources, availableResources);
         
         // Set maximum demand for each process
         for (int i = 0; i < numProcesses; i++) {
@@ -38,7 +69,7 @@ public class ScenarioGenerator {
             for (int j = 0; j < numResources; j++) {
                 maxDemand[j] = (i == j || i == (j+1) % numResources) ? 2 : 0;
             }
-            engine.getBankersAlgorithm().setMaxDemand(i, maxDemand);
+            setMaxDemand(i, maxDemand);
         }
         
         // Create the circular wait pattern
@@ -48,11 +79,10 @@ public class ScenarioGenerator {
             int requestedResource = (i + 1) % numProcesses;
             
             // First allocate a resource to each process
-            engine.getBankersAlgorithm().allocateResource(i, heldResource, 1);
-            engine.getResourceAllocationGraph().addAllocation(heldResource, i, 1);
+            allocate(i, heldResource, 1);
             
             // Then have each process request another resource
-            engine.getResourceAllocationGraph().addRequest(i, requestedResource, 1);
+            addRequest(i, requestedResource, 1);
         }
     }
     
@@ -71,7 +101,7 @@ public class ScenarioGenerator {
             availableResources[i] = 1; // Each fork is a single unit resource
         }
         
-        engine.initialize(numPhilosophers, numPhilosophers, availableResources);
+        initialize(numPhilosophers, numPhilosophers, availableResources);
         
         // Set maximum demand - each philosopher needs 2 forks
         for (int i = 0; i < numPhilosophers; i++) {
@@ -80,21 +110,31 @@ public class ScenarioGenerator {
             int rightFork = (i + 1) % numPhilosophers;
             maxDemand[leftFork] = 1;
             maxDemand[rightFork] = 1;
-            engine.getBankersAlgorithm().setMaxDemand(i, maxDemand);
+            setMaxDemand(i, maxDemand);
         }
         
         // Create the deadlock scenario - each philosopher picks up their left fork
         for (int i = 0; i < numPhilosophers; i++) {
             int leftFork = i;
-            engine.getBankersAlgorithm().allocateResource(i, leftFork, 1);
-            engine.getResourceAllocationGraph().addAllocation(leftFork, i, 1);
+            allocate(i, leftFork, 1);
             
             // Each philosopher tries to pick up their right fork
             int rightFork = (i + 1) % numPhilosophers;
-            engine.getResourceAllocationGraph().addRequest(i, rightFork, 1);
+            addRequest(i, rightFork, 1);
         }
     }
     
+    /**
+     * Generates a random scenario from the given seed, so the same arguments
+     * always produce the same scenario.
+     * @param deadlockProbability Probability of creating a deadlock (0.0 to 1.0)
+     * @param seed The seed for the scenario's random choices
+     */
+    public void generateRandomScenario(int numProcesses, int numResources, double deadlockProbability, long seed) {
+        setSeed(seed);
+        generateRandomScenario(numProcesses, numResources, deadlockProbability);
+    }
+    
     /**
      * Generates a random resource allocation scenario that may or may not lead to deadlock.
      * @param deadlockProbability Probability of creating a deadlock (0.0 to 1.0)
@@ -110,7 +150,7 @@ public class ScenarioGenerator {
             availableResources[i] = 3 + random.nextInt(numProcesses * 2);
         }
         
-        engine.initialize(numProcesses, numResources, availableResources);
+        initialize(numProcesses, numResources, availableResources);
         
         // Set random maximum demand for each process
         for (int i = 0; i < numProcesses; i++) {
@@ -118,7 +158,7 @@ public class ScenarioGenerator {
             for (int j = 0; j < numResources; j++) {
                 maxDemand[j] = 1 + random.nextInt(3); // Random demand between 1-3 units
             }
-            engine.getBankersAlgorithm().setMaxDemand(i, maxDemand);
+            setMaxDemand(i, maxDemand);
         }
         
         // Randomly allocate resources to processes
@@ -130,8 +170,7 @@ public class ScenarioGenerator {
                     units = Math.min(units, maxForProcess); // Don't exceed max demand
                     
                     if (units > 0) {
-                        engine.getBankersAlgorithm().allocateResource(i, j, units);
-                        engine.getResourceAllocationGraph().addAllocation(j, i, units);
+                        allocate(i, j, units);
                     }
                 }
             }
@@ -163,7 +202,81 @@ public class ScenarioGenerator {
             
             // Add request to create dependency
             int units = 1;
-            engine.getResourceAllocationGraph().addRequest(process, requestedResource, units);
+            addRequest(process, requestedResource, units);
+        }
+    }
+    
+    /**
+     * Issues a random stream of single-unit requests and releases from active
+     * processes through the engine, running deadlock detection (and resolving
+     * any deadlock found) at a fixed interval. The system must already be
+     * initialized, typically by one of the scenario methods.
+     * @param operations Number of request or release attempts to make
+     * @param detectEvery Number of attempts between detection passes
+     */
+    public void generateRandomWorkload(int operations, int detectEvery) {
+        BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+        int numProcesses = bankersAlg.getMaxMatrix().length;
+        int numResources = bankersAlg.getAvailableResources().length;
+        
+        for (int op = 1; op <= operations; op++) {
+            int processId = random.nextInt(numProcesses);
+            int resourceId = random.nextInt(numResources);
+            if (bankersAlg.isProcessActive(processId)) {
+                int need = bankersAlg.getNeedMatrix()[processId][resourceId];
+                int held = bankersAlg.getAllocationMatrix()[processId][resourceId];
+                if (need > 0 && (held == 0 || random.nextBoolean())) {
+                    if (recorder != null) {
+                        recorder.recordRequest(processId, resourceId, 1);
+                    }
+                    engine.requestResource(processId, resourceId, 1);
+                } else if (held > 0) {
+                    if (recorder != null) {
+                        recorder.recordRelease(processId, resourceId, 1);
+                    }
+                    engine.releaseResource(processId, resourceId, 1);
+                }
+            }
+            
+            if (op % detectEvery == 0) {
+                if (recorder != null) {
+                    recorder.recordDetect();
+                }
+                if (engine.detectDeadlock()) {
+                    if (recorder != null) {
+                        recorder.recordResolve();
+                    }
+                    engine.resolveDeadlock();
+                }
+            }
+        }
+    }
+    
+    private void initialize(int numProcesses, int numResources, int[] availableResources) {
+        if (recorder != null) {
+            recorder.recordInitialize(numProcesses, numResources, availableResources);
+        }
+        engine.initialize(numProcesses, numResources, availableResources);
+    }
+    
+    private void setMaxDemand(int processId, int[] maxDemand) {
+        if (recorder != null) {
+            recorder.recordSetMax(processId, maxDemand);
+        }
+        engine.getBankersAlgorithm().setMaxDemand(processId, maxDemand);
+    }
+    
+    private void allocate(int processId, int resourceId, int units) {
+        if (recorder != null) {
+            recorder.recordAllocate(processId, resourceId, units);
+        }
+        engine.seedAllocation(processId, resourceId, units);
+    }
+    
+    private void addRequest(int processId, int resourceId, int units) {
+        if (recorder != null) {
+            recorder.recordAddRequest(processId, resourceId, units);
         }
+        engine.getResourceAllocationGraph().addRequest(processId, resourceId, units);
     }
 }
@@ -0,0 +1,397 @@
+package deadlocktoolkit.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Bounded history of system states.
+ *
+ * The most recent states are kept in memory in a fixed-size ring buffer. When
+ * the ring is full, the oldest state is spilled to an append-only file on local
+ * disk and paged back in lazily when it is requested again. At most maxSpilled
+ * states are kept on disk; beyond that the oldest are dropped for good, so both
+ * memory and disk use stay bounded no matter how long the simulation runs.
+ * Truncating into the spilled states cuts the file back, and the space of
+ * dropped states is reclaimed once it outweighs the live part of the file.
+ *
+ * Logical indices [firstIndex, ringStart) live on disk, [ringStart, size) live
+ * in memory. Indices are not renumbered when old states are dropped.
+ */
+public class StateHistory {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int DEFAULT_MAX_SPILLED = 65536;
+    
+    // Dropped states' bytes are only moved out once they fill at least this much of the file
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+    
+    private final SystemState[] ring;
+    private final int maxSpilled;
+    private int ringHead;   // slot holding logical index ringStart
+    private int ringStart;  // lowest logical index held in memory
+    private int firstIndex; // lowest logical index still held at all
+    private int size;
+    
+    // Spill file and the location of each spilled state, in slots indexed by
+    // logical index modulo the array length
+    private Path spillPath;
+    private RandomAccessFile spillFile;
+    private long spillEnd;
+    private long[] spillOffsets = new long[64];
+    private int[] spillLengths = new int[64];
+    
+    // Single-entry cache for the last state paged in from disk
+    private int pagedIndex = -1;
+    private SystemState pagedState;
+    
+    public StateHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public StateHistory(int capacity) {
+        this(capacity, DEFAULT_MAX_SPILLED);
+    }
+    
+    /**
+     * Creates a history.
+     *
+     * @param capacity The number of states held in memory
+     * @param maxSpilled The number of older states kept on disk before the oldest are dropped
+     */
+    public StateHistory(int capacity, int maxSpilled) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be at least 1");
+        }
+        if (maxSpilled < 1) {
+            throw new IllegalArgumentException("At least one state must be kept on disk");
+        }
+        this.ring = new SystemState[capacity];
+        this.maxSpilled = maxSpilled;
+    }
+    
+    /**
+     * Appends a state to the end of the history, spilling the oldest in-memory
+     * state to disk if the ring is full.
+     *
+     * @param state The state to append
+     */
+    public void add(SystemState state) {
+        if (size - ringStart == ring.length) {
+            spill(ring[ringHead], ringStart);
+            ring[ringHead] = null;
+            ringHead = (ringHead + 1) % ring.length;
+            ringStart++;
+        }
+        ring[(ringHead + size - ringStart) % ring.length] = state;
+        size++;
+    }
+    
+    /**
+     * Gets the state at the given logical index, paging it in from disk if it
+     * is no longer held in memory.
+     *
+     * @param index The logical index of the state
+     * @return The state at that index
+     */
+    public SystemState get(int index) {
+        if (index < firstIndex || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for history holding ["
+                                                + firstIndex + ", " + size + ")");
+        }
+        if (index >= ringStart) {
+            return ring[(ringHead + index - ringStart) % ring.length];
+        }
+        if (index != pagedIndex) {
+            pagedState = readSpilled(index);
+            pagedIndex = index;
+        }
+        return pagedState;
+    }
+    
+    /**
+     * Discards every state at or after the given logical index. The in-memory
+     * slots are cleared immediately so the discarded states can be collected,
+     * and the spill file is cut back to the spilled states that remain.
+     *
+     * @param newSize The logical index to keep states below; states before the
+     *        first index are already gone
+     */
+    public void truncate(int newSize) {
+        newSize = Math.max(newSize, firstIndex);
+        if (newSize >= size) {
+            return;
+        }
+        for (int i = Math.max(newSize, ringStart); i < size; i++) {
+            ring[(ringHead + i - ringStart) % ring.length] = null;
+        }
+        if (newSize < ringStart) {
+            ringStart = newSize;
+            cutSpillFile();
+        }
+        if (pagedIndex >= newSize) {
+            pagedIndex = -1;
+            pagedState = null;
+        }
+        size = newSize;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getCapacity() {
+        return ring.length;
+    }
+    
+    public int getMaxSpilled() {
+        return maxSpilled;
+    }
+    
+    /**
+     * Gets the lowest logical index still held. States below it were dropped
+     * to keep the spill file within maxSpilled states.
+     *
+     * @return The first index, 0 until a state has been dropped
+     */
+    public int getFirstIndex() {
+        return firstIndex;
+    }
+    
+    /**
+     * Gets the number of states currently spilled to disk.
+     *
+     * @return The number of on-disk states
+     */
+    public int getSpilledCount() {
+        return ringStart - firstIndex;
+    }
+    
+    /**
+     * Drops all history and deletes the spill file.
+     */
+    public void clear() {
+        Arrays.fill(ring, null);
+        ringHead = 0;
+        ringStart = 0;
+        firstIndex = 0;
+        size = 0;
+        pagedIndex = -1;
+        pagedState = null;
+        closeSpillFile();
+    }
+    
+    private void spill(SystemState state, int index) {
+        try {
+            if (spillFile == null) {
+                spillPath = Files.createTempFile("deadlock-history", ".bin");
+                spillPath.toFile().deleteOnExit();
+                spillFile = new RandomAccessFile(spillPath.toFile(), "rw");
+                spillEnd = 0;
+            }
+            if (index - firstIndex == maxSpilled) {
+                dropOldest();
+            }
+            byte[] bytes = encode(state);
+            spillFile.seek(spillEnd);
+            spillFile.write(bytes);
+            
+            ensureSlots(index - firstIndex + 1);
+            int slot = index % spillOffsets.length;
+            spillOffsets[slot] = spillEnd;
+            spillLengths[slot] = bytes.length;
+            spillEnd += bytes.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill history state to disk", e);
+        }
+    }
+    
+    private void dropOldest() throws IOException {
+        if (pagedIndex == firstIndex) {
+            pagedIndex = -1;
+            pagedState = null;
+        }
+        firstIndex++;
+        if (firstIndex == ringStart) {
+            spillEnd = 0;
+            spillFile.setLength(0);
+            return;
+        }
+        long dead = spillOffsets[firstIndex % spillOffsets.length];
+        if (dead >= MIN_COMPACTION_BYTES && dead > spillEnd - dead) {
+            compact(dead);
+        }
+    }
+    
+    /**
+     * Moves the live part of the spill file, which starts at the given offset,
+     * to the front of the file.
+     */
+    private void compact(long dead) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        for (long from = dead; from < spillEnd; from += chunk.length) {
+            int length = (int) Math.min(chunk.length, spillEnd - from);
+            spillFile.seek(from);
+            spillFile.readFully(chunk, 0, length);
+            spillFile.seek(from - dead);
+            spillFile.write(chunk, 0, length);
+        }
+        // The state being spilled is not counted yet, so only [firstIndex, ringStart) is live
+        for (int i = firstIndex; i < ringStart; i++) {
+            spillOffsets[i % spillOffsets.length] -= dead;
+        }
+        spillEnd -= dead;
+        spillFile.setLength(spillEnd);
+    }
+    
+    /**
+     * Cuts the spill file back to the end of the last state still spilled
+     * after a truncation.
+     */
+    private void cutSpillFile() {
+        if (spillFile == null) {
+            return;
+        }
+        if (ringStart > firstIndex) {
+            int last = (ringStart - 1) % spillOffsets.length;
+            spillEnd = spillOffsets[last] + spillLengths[last];
+        } else {
+            spillEnd = 0;
+        }
+        try {
+            spillFile.setLength(spillEnd);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate history spill file", e);
+        }
+    }
+    
+    /**
+     * Grows the spill slots to hold the given number of states, moving each
+     * spilled state to its slot under the new length.
+     */
+    private void ensureSlots(int needed) {
+        if (needed <= spillOffsets.length) {
+            return;
+        }
+        int length = Math.min(Math.max(needed, spillOffsets.length * 2), maxSpilled);
+        long[] offsets = new long[length];
+        int[] lengths = new int[length];
+        for (int i = firstIndex; i < ringStart; i++) {
+            offsets[i % length] = spillOffsets[i % spillOffsets.length];
+            lengths[i % length] = spillLengths[i % spillOffsets.length];
+        }
+        spillOffsets = offsets;
+        spillLengths = lengths;
+    }
+    
+    private SystemState readSpilled(int index) {
+        try {
+            int slot = index % spillOffsets.length;
+            byte[] bytes = new byte[spillLengths[slot]];
+            spillFile.seek(spillOffsets[slot]);
+            spillFile.readFully(bytes);
+            return decode(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read history state from disk", e);
+        }
+    }
+    
+    private void closeSpillFile() {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            spillFile.close();
+            Files.deleteIfExists(spillPath);
+        } catch (IOException e) {
+            // The file is marked deleteOnExit, nothing more to do
+        }
+        spillFile = null;
+        spillPath = null;
+    }
+    
+    /*
+     * Record layout: numProcesses, numResources, allocation, max, available,
+     * RAG allocation edges, RAG request edges, all as zig-zag varints. The need
+     * matrix is always max - allocation, so it is rebuilt on decode.
+     */
+    private static byte[] encode(SystemState state) throws IOException {
+        int[][] allocation = state.getAllocationMatrix();
+        int[][] max = state.getMaxMatrix();
+        int[] available = state.getAvailableResources();
+        ResourceAllocationGraph rag = state.getResourceAllocationGraph();
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Varints.write(out, allocation.length);
+        Varints.write(out, available.length);
+        writeMatrix(out, allocation);
+        writeMatrix(out, max);
+        for (int value : available) {
+            Varints.write(out, value);
+        }
+        writeMatrix(out, rag.getAllocationEdges());
+        writeMatrix(out, rag.getRequestEdges());
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static SystemState decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int numProcesses = Varints.read(in);
+        int numResources = Varints.read(in);
+        int[][] allocation = readMatrix(in, numProcesses, numResources);
+        int[][] max = readMatrix(in, numProcesses, numResources);
+        int[] available = new int[numResources];
+        for (int j = 0; j < numResources; j++) {
+            available[j] = Varints.read(in);
+        }
+        
+        int[][] need = new int[numProcesses][numResources];
+        for (int i = 0; i < numProcesses; i++) {
+            for (int j = 0; j < numResources; j++) {
+                need[i][j] = max[i][j] - allocation[i][j];
+            }
+        }
+        
+        ResourceAllocationGraph rag = new ResourceAllocationGraph(numProcesses, numResources);
+        int[][] allocationEdges = readMatrix(in, numProcesses, numResources);
+        int[][] requestEdges = readMatrix(in, numResources, numProcesses);
+        for (int i = 0; i < numProcesses; i++) {
+            for (int j = 0; j < numResources; j++) {
+                if (allocationEdges[i][j] != 0) {
+                    rag.addAllocation(i, j, allocationEdges[i][j]);
+                }
+                if (requestEdges[j][i] != 0) {
+                    rag.addRequest(i, j, requestEdges[j][i]);
+                }
+            }
+        }
+        
+        return new SystemState(allocation, max, need, available, rag);
+    }
+    
+    private static void writeMatrix(DataOutputStream out, int[][] matrix) throws IOException {
+        for (int[] row : matrix) {
+            for (int value : row) {
+                Varints.write(out, value);
+            }
+        }
+    }
+    
+    private static int[][] readMatrix(DataInputStream in, int rows, int cols) throws IOException {
+        int[][] matrix = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                matrix[i][j] = Varints.read(in);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,64 @@
+package deadlocktoolkit.core;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A plain observable value used by the core to expose state without depending
+ * on a UI toolkit. Listeners run synchronously on the thread that changes the
+ * value; UI code is expected to hop onto its own thread before touching widgets.
+ *
+ * @param <T> The type of the held value
+ */
+public class StateProperty<T> {
+    private volatile T value;
+    private final List<Consumer<? super T>> listeners = new CopyOnWriteArrayList<>();
+    
+    public StateProperty(T initialValue) {
+        this.value = initialValue;
+    }
+    
+    /**
+     * Gets the current value.
+     *
+     * @return The current value
+     */
+    public T get() {
+        return value;
+    }
+    
+    /**
+     * Sets the value, notifying listeners only if it actually changed.
+     *
+     * @param newValue The new value
+     */
+    public void set(T newValue) {
+        if (Objects.equals(value, newValue)) {
+            return;
+        }
+        value = newValue;
+        for (Consumer<? super T> listener : listeners) {
+            listener.accept(newValue);
+        }
+    }
+    
+    /**
+     * Adds a listener that is called with every new value.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(Consumer<? super T> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a previously added listener.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeListener(Consumer<? super T> listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,240 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hashed hierarchical timing wheel for request timeouts and lease expiry.
+ *
+ * Time is divided into ticks. Level 0 has one slot per tick for the next 256
+ * ticks, and each higher level has slots 256 times as wide. A timer goes into
+ * the lowest level whose range covers its deadline, and is moved down a level
+ * when the wheel below wraps around to its slot. Scheduling and cancelling
+ * are O(1); expiry costs O(1) per timer plus one cascade per level wrap, and
+ * stretches of time in which no lower level holds a timer are skipped.
+ *
+ * Timers live in parallel primitive arrays linked into per-slot doubly linked
+ * lists, so millions of outstanding timers cost a few arrays rather than an
+ * object each. Handles carry a generation count, which makes cancelling a
+ * timer that already fired (and whose entry was reused) a harmless no-op.
+ *
+ * @param <T> The type of item attached to each timer
+ */
+public final class TimingWheel<T> {
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int NONE = -1;
+    
+    private final long tickNanos;
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private final int[] levelSize = new int[LEVELS];
+    private long currentTick;
+    
+    // Per-timer state, indexed by entry
+    private long[] deadlineTick;
+    private int[] next;
+    private int[] prev;
+    private int[] slot;
+    private int[] generation;
+    private Object[] items;
+    private int freeHead = NONE;
+    private int used;
+    private int size;
+    
+    /**
+     * Creates a wheel.
+     *
+     * @param tickNanos The length of one tick, the resolution of all deadlines
+     * @param startNanos The current time
+     */
+    public TimingWheel(long tickNanos, long startNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickNanos);
+        }
+        this.tickNanos = tickNanos;
+        this.currentTick = Math.floorDiv(startNanos, tickNanos);
+        Arrays.fill(heads, NONE);
+        int capacity = 64;
+        deadlineTick = new long[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        slot = new int[capacity];
+        generation = new int[capacity];
+        items = new Object[capacity];
+    }
+    
+    /**
+     * Schedules a timer. Deadlines in the past fire on the next tick.
+     *
+     * @param deadlineNanos When the timer should fire
+     * @param item The item handed back when it fires
+     * @return A handle for cancelling the timer
+     */
+    public long schedule(long deadlineNanos, T item) {
+        int entry = allocate();
+        // Round up so a timer never fires before its deadline
+        deadlineTick[entry] = Math.max(Math.floorDiv(deadlineNanos + tickNanos - 1, tickNanos), currentTick + 1);
+        items[entry] = item;
+        place(entry);
+        size++;
+        return ((long) generation[entry] << 32) | entry;
+    }
+    
+    /**
+     * Cancels a timer.
+     *
+     * @param handle The handle returned by schedule
+     * @return True if the timer was pending, false if it had already fired or been cancelled
+     */
+    public boolean cancel(long handle) {
+        if (handle < 0) {
+            return false;
+        }
+        int entry = (int) handle;
+        if (entry >= used || generation[entry] != (int) (handle >>> 32) || slot[entry] == NONE) {
+            return false;
+        }
+        unlink(entry);
+        release(entry);
+        size--;
+        return true;
+    }
+    
+    /**
+     * Advances the wheel to the given time, handing every timer whose deadline
+     * has passed to the consumer. The consumer may schedule and cancel timers.
+     *
+     * @param nowNanos The current time
+     * @param expired Receives the items of expired timers
+     * @return The number of timers that fired
+     */
+    public int advance(long nowNanos, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowNanos, tickNanos);
+        int fired = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            
+            // With the lower levels empty, nothing happens before the next cascade
+            int lowest = 0;
+            while (levelSize[lowest] == 0) {
+                lowest++;
+            }
+            if (lowest > 0) {
+                int shift = SLOT_BITS * lowest;
+                long beforeCascade = (((currentTick >>> shift) + 1) << shift) - 1;
+                if (beforeCascade > currentTick) {
+                    currentTick = Math.min(beforeCascade, targetTick);
+                    continue;
+                }
+            }
+            currentTick++;
+            
+            // Moving onto slot 0 of a level pulls the next slot of the level above down
+            for (int level = 1; level < LEVELS; level++) {
+                if (((currentTick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                    break;
+                }
+                cascade(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+            }
+            
+            int bucket = (int) (currentTick & SLOT_MASK);
+            int entry;
+            while ((entry = heads[bucket]) != NONE) {
+                unlink(entry);
+                @SuppressWarnings("unchecked")
+                T item = (T) items[entry];
+                release(entry);
+                size--;
+                fired++;
+                expired.accept(item);
+            }
+        }
+        return fired;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long getTickNanos() {
+        return tickNanos;
+    }
+    
+    private void cascade(int bucket) {
+        int entry = heads[bucket];
+        heads[bucket] = NONE;
+        while (entry != NONE) {
+            int following = next[entry];
+            levelSize[bucket >>> SLOT_BITS]--;
+            place(entry);
+            entry = following;
+        }
+    }
+    
+    private void place(int entry) {
+        long delta = deadlineTick[entry] - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long tick = deadlineTick[entry];
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // Beyond the top level's range: park in its furthest slot and re-place on cascade
+            tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int bucket = level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        slot[entry] = bucket;
+        levelSize[level]++;
+        prev[entry] = NONE;
+        next[entry] = heads[bucket];
+        if (heads[bucket] != NONE) {
+            prev[heads[bucket]] = entry;
+        }
+        heads[bucket] = entry;
+    }
+    
+    private void unlink(int entry) {
+        if (prev[entry] != NONE) {
+            next[prev[entry]] = next[entry];
+        } else {
+            heads[slot[entry]] = next[entry];
+        }
+        if (next[entry] != NONE) {
+            prev[next[entry]] = prev[entry];
+        }
+        levelSize[slot[entry] >>> SLOT_BITS]--;
+        slot[entry] = NONE;
+    }
+    
+    private int allocate() {
+        if (freeHead != NONE) {
+            int entry = freeHead;
+            freeHead = next[entry];
+            return entry;
+        }
+        if (used == slot.length) {
+            int capacity = used * 2;
+            deadlineTick = Arrays.copyOf(deadlineTick, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            slot = Arrays.copyOf(slot, capacity);
+            generation = Arrays.copyOf(generation, capacity);
+            items = Arrays.copyOf(items, capacity);
+        }
+        return used++;
+    }
+    
+    private void release(int entry) {
+        items[entry] = null;
+        slot[entry] = NONE;
+        // Kept non-negative so handles are never negative
+        generation[entry] = (generation[entry] + 1) & Integer.MAX_VALUE;
+        next[entry] = freeHead;
+        freeHead = entry;
+    }
+}
@@ -0,0 +1,144 @@
+package deadlocktoolkit.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the exact stream of commands issued against an engine to a compact
+ * binary trace that {@link TraceReplayer} can play back.
+ *
+ * A trace is a magic number and version byte followed by records. Each record
+ * is an opcode byte and its arguments as zig-zag varints, so a typical
+ * single-unit request takes four bytes.
+ */
+public class TraceRecorder implements Closeable, Flushable {
+    static final int MAGIC = 0x444C5452; // "DLTR"
+    static final int VERSION = 1;
+    
+    static final int INITIALIZE = 1;
+    static final int SET_MAX = 2;
+    static final int ALLOCATE = 3;
+    static final int ADD_REQUEST = 4;
+    static final int REQUEST = 5;
+    static final int RELEASE = 6;
+    static final int DETECT = 7;
+    static final int RESOLVE = 8;
+    
+    private final DataOutputStream out;
+    private long records;
+    
+    public TraceRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+    
+    public static TraceRecorder create(Path path) throws IOException {
+        return new TraceRecorder(Files.newOutputStream(path));
+    }
+    
+    public void recordInitialize(int numProcesses, int numResources, int[] availableResources) {
+        try {
+            out.writeByte(INITIALIZE);
+            Varints.write(out, numProcesses);
+            Varints.write(out, numResources);
+            for (int units : availableResources) {
+                Varints.write(out, units);
+            }
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public void recordSetMax(int processId, int[] maxDemand) {
+        try {
+            out.writeByte(SET_MAX);
+            Varints.write(out, processId);
+            for (int units : maxDemand) {
+                Varints.write(out, units);
+            }
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Records a direct allocation that bypasses the safety check, as used by
+     * scenario generators to build a starting state.
+     */
+    public void recordAllocate(int processId, int resourceId, int units) {
+        write(ALLOCATE, processId, resourceId, units);
+    }
+    
+    /**
+     * Records a request edge added to the graph without going through the engine.
+     */
+    public void recordAddRequest(int processId, int resourceId, int units) {
+        write(ADD_REQUEST, processId, resourceId, units);
+    }
+    
+    public void recordRequest(int processId, int resourceId, int units) {
+        write(REQUEST, processId, resourceId, units);
+    }
+    
+    public void recordRelease(int processId, int resourceId, int units) {
+        write(RELEASE, processId, resourceId, units);
+    }
+    
+    public void recordDetect() {
+        writeOpcode(DETECT);
+    }
+    
+    public void recordResolve() {
+        writeOpcode(RESOLVE);
+    }
+    
+    /**
+     * Gets the number of records written so far.
+     *
+     * @return The record count
+     */
+    public long getRecordCount() {
+        return records;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    
+    private void write(int opcode, int processId, int resourceId, int units) {
+        try {
+            out.writeByte(opcode);
+            Varints.write(out, processId);
+            Varints.write(out, resourceId);
+            Varints.write(out, units);
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void writeOpcode(int opcode) {
+        try {
+            out.writeByte(opcode);
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
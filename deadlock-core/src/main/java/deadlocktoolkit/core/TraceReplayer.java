@@ -0,0 +1,214 @@
+package deadlocktoolkit.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Drives a DeadlockEngine from a trace written by {@link TraceRecorder}.
+ *
+ * The whole trace is held in memory and decoded inline, so replay measures
+ * the engine rather than disk or parsing. Replaying the same trace on two
+ * builds issues exactly the same commands; comparing their outcome hashes
+ * shows whether behavior changed, and comparing their timings shows whether
+ * performance did.
+ */
+public class TraceReplayer {
+    private final byte[] trace;
+    
+    public TraceReplayer(byte[] trace) {
+        if (trace.length < 5 || readInt(trace) != TraceRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a command trace");
+        }
+        if (trace[4] != TraceRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported trace version " + trace[4]);
+        }
+        this.trace = trace;
+    }
+    
+    public static TraceReplayer load(Path path) throws IOException {
+        return new TraceReplayer(Files.readAllBytes(path));
+    }
+    
+    /**
+     * Replays the trace against the engine as fast as it will go.
+     *
+     * @param engine The engine to drive; the trace normally starts by initializing it
+     * @return Counts, timing and an outcome hash for the replay
+     */
+    public Result replay(DeadlockEngine engine) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(trace, 5, trace.length - 5));
+        Result result = new Result();
+        int numResources = 0;
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                int opcode = in.read();
+                if (opcode < 0) {
+                    break;
+                }
+                switch (opcode) {
+                    case TraceRecorder.INITIALIZE: {
+                        int numProcesses = Varints.read(in);
+                        numResources = Varints.read(in);
+                        int[] available = readVector(in, numResources);
+                        engine.initialize(numProcesses, numResources, available);
+                        break;
+                    }
+                    case TraceRecorder.SET_MAX: {
+                        int processId = Varints.read(in);
+                        engine.getBankersAlgorithm().setMaxDemand(processId, readVector(in, numResources));
+                        break;
+                    }
+                    case TraceRecorder.ALLOCATE: {
+                        int processId = Varints.read(in);
+                        int resourceId = Varints.read(in);
+                        int units = Varints.read(in);
+                        engine.seedAllocation(processId, resourceId, units);
+                        break;
+                    }
+                    case TraceRecorder.ADD_REQUEST:
+                        engine.getResourceAllocationGraph().addRequest(Varints.read(in), Varints.read(in), Varints.read(in));
+                        break;
+                    case TraceRecorder.REQUEST: {
+                        boolean granted = engine.requestResource(Varints.read(in), Varints.read(in), Varints.read(in));
+                        if (granted) {
+                            result.granted++;
+                        } else {
+                            result.denied++;
+                        }
+                        result.mix(granted ? 1 : 2);
+                        break;
+                    }
+                    case TraceRecorder.RELEASE:
+                        engine.releaseResource(Varints.read(in), Varints.read(in), Varints.read(in));
+                        result.releases++;
+                        break;
+                    case TraceRecorder.DETECT: {
+                        boolean deadlocked = engine.detectDeadlock();
+                        if (deadlocked) {
+                            result.deadlocks++;
+                        }
+                        result.mix(deadlocked ? 3 : 4);
+                        break;
+                    }
+                    case TraceRecorder.RESOLVE:
+                        engine.resolveDeadlock();
+                        break;
+                    default:
+                        throw new IllegalStateException("Corrupt trace: unknown opcode " + opcode
+                                                        + " after " + result.records + " records");
+                }
+                result.records++;
+            }
+        } catch (EOFException e) {
+            throw new IllegalStateException("Truncated trace after " + result.records + " records", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+    
+    private static int[] readVector(DataInputStream in, int length) throws IOException {
+        int[] vector = new int[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = Varints.read(in);
+        }
+        return vector;
+    }
+    
+    private static int readInt(byte[] bytes) {
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
+    
+    /**
+     * Replays a trace file repeatedly on fresh engines and prints the timings.
+     *
+     * <pre>
+     * java deadlocktoolkit.core.TraceReplayer trace.bin [iterations]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace> [iterations]");
+            System.exit(2);
+        }
+        TraceReplayer replayer = load(Path.of(args[0]));
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (int i = 0; i < iterations; i++) {
+            DeadlockEngine engine = new DeadlockEngine();
+            engine.setHistoryRecording(false);
+            Result result = replayer.replay(engine);
+            engine.shutdown();
+            System.out.println("Iteration " + (i + 1) + ": " + result);
+        }
+    }
+    
+    /**
+     * The outcome of one replay.
+     */
+    public static class Result {
+        private long records;
+        private long granted;
+        private long denied;
+        private long releases;
+        private long deadlocks;
+        private long outcomeHash = 1;
+        private long elapsedNanos;
+        
+        private void mix(int outcome) {
+            outcomeHash = outcomeHash * 31 + outcome;
+        }
+        
+        public long getRecords() {
+            return records;
+        }
+        
+        public long getGrantedRequests() {
+            return granted;
+        }
+        
+        public long getDeniedRequests() {
+            return denied;
+        }
+        
+        public long getReleases() {
+            return releases;
+        }
+        
+        public long getDeadlocks() {
+            return deadlocks;
+        }
+        
+        /**
+         * Gets a hash of every request and detection outcome in order. Two
+         * replays of the same trace with equal hashes made the same decisions.
+         *
+         * @return The outcome hash
+         */
+        public long getOutcomeHash() {
+            return outcomeHash;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        public double getRecordsPerSecond() {
+            return elapsedNanos > 0 ? records * 1e9 / elapsedNanos : 0.0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d records in %.3f ms (%.0f records/s), %d granted, %d denied, "
+                                 + "%d releases, %d deadlocks, outcome hash %016x",
+                                 records, elapsedNanos / 1e6, getRecordsPerSecond(), granted, denied,
+                                 releases, deadlocks, outcomeHash);
+        }
+    }
+}
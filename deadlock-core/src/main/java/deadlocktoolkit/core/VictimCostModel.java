@@ -0,0 +1,94 @@
+package deadlocktoolkit.core;
+
+/**
+ * Estimates the work lost by terminating a process to break a deadlock.
+ * Victim selection minimizes the total cost of the processes it terminates,
+ * so costs should be positive and larger for processes that are more
+ * expensive to kill.
+ */
+@FunctionalInterface
+public interface VictimCostModel {
+    
+    /**
+     * Computes the cost of terminating a process.
+     *
+     * @param engine The engine holding the current state
+     * @param processId The candidate victim
+     * @return The cost of terminating the process
+     */
+    double cost(DeadlockEngine engine, int processId);
+    
+    /**
+     * Costs a process by the total number of resource units it holds.
+     */
+    static VictimCostModel heldUnits() {
+        return (engine, processId) -> {
+            int held = 0;
+            for (int units : engine.getBankersAlgorithm().getAllocationMatrix()[processId]) {
+                held += units;
+            }
+            return held;
+        };
+    }
+    
+    /**
+     * Costs a process by how close it is to finishing: the fraction of its
+     * maximum claim it already holds.
+     */
+    static VictimCostModel progress() {
+        return (engine, processId) -> {
+            BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+            int[] allocation = bankersAlg.getAllocationMatrix()[processId];
+            int[] max = bankersAlg.getMaxMatrix()[processId];
+            int held = 0;
+            int claim = 0;
+            for (int j = 0; j < allocation.length; j++) {
+                held += allocation[j];
+                claim += max[j];
+            }
+            return claim > 0 ? (double) held / claim : 0.0;
+        };
+    }
+    
+    /**
+     * Costs a process by its scheduling priority, so higher-priority processes
+     * are spared where possible.
+     */
+    static VictimCostModel priority() {
+        return (engine, processId) -> engine.getProcessPriority(processId);
+    }
+    
+    /**
+     * Costs a process by the number of grants it has received, which is the
+     * number of acquisitions it would have to redo after a restart.
+     */
+    static VictimCostModel restartCost() {
+        return (engine, processId) -> engine.getGrantCount(processId);
+    }
+    
+    /**
+     * Combines held units, progress, priority and restart cost with the given
+     * weights, on top of a base cost of one so that terminating any process
+     * has some cost.
+     */
+    static VictimCostModel weighted(double heldWeight, double progressWeight,
+                                    double priorityWeight, double restartWeight) {
+        VictimCostModel held = heldUnits();
+        VictimCostModel progress = progress();
+        VictimCostModel priority = priority();
+        VictimCostModel restart = restartCost();
+        return (engine, processId) -> 1.0
+            + heldWeight * held.cost(engine, processId)
+            + progressWeight * progress.cost(engine, processId)
+            + priorityWeight * priority.cost(engine, processId)
+            + restartWeight * restart.cost(engine, processId);
+    }
+    
+    /**
+     * The model used unless the engine is given another: all four factors
+     * with equal weight.
+     */
+    static VictimCostModel defaultModel() {
+        return weighted(1.0, 1.0, 1.0, 1.0);
+    }
+}
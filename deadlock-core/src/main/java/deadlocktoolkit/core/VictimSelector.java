@@ -0,0 +1,141 @@
+package deadlocktoolkit.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chooses a set of processes whose termination breaks every cycle in a
+ * wait-for graph at minimum total cost (a minimum-weight feedback vertex set).
+ *
+ * The exact problem is NP-hard, so each cyclic component is solved with a
+ * greedy pass followed by local search. The greedy pass repeatedly removes the
+ * process with the best ratio of cycle involvement (in-degree times
+ * out-degree) to cost until the component is acyclic. Local search then drops
+ * victims that turned out to be redundant and swaps victims for cheaper
+ * processes that break the same cycles on their own.
+ */
+public final class VictimSelector {
+    // Bound on the quadratic swap search per component
+    private static final int MAX_SWAP_COMPONENT = 512;
+    private static final double MIN_COST = 1e-9;
+    
+    private VictimSelector() {
+    }
+    
+    /**
+     * Selects victims for every cyclic component of the graph.
+     *
+     * @param graph The wait-for graph
+     * @param components Its cyclic components, from {@link WaitForGraph#findCyclicComponents()}
+     * @param cost Cost of terminating each process, indexed by process id
+     * @return The processes to terminate, in ascending order
+     */
+    public static int[] selectVictims(WaitForGraph graph, List<int[]> components, double[] cost) {
+        int n = graph.getNumProcesses();
+        boolean[] removed = new boolean[n];
+        boolean[] inSubgraph = new boolean[n];
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        int[] queue = new int[n];
+        int[] victims = new int[n];
+        int victimCount = 0;
+        
+        for (int[] members : components) {
+            int first = victimCount;
+            
+            // Greedy: remove the most cycle-involved process per unit of cost
+            while (graph.hasCycle(members, removed, inSubgraph, inDegree, queue)) {
+                graph.degrees(members, removed, inSubgraph, inDegree, outDegree);
+                int best = -1;
+                double bestScore = -1;
+                for (int v : members) {
+                    if (!removed[v]) {
+                        double score = (double) inDegree[v] * outDegree[v] / Math.max(cost[v], MIN_COST);
+                        if (score > bestScore) {
+                            bestScore = score;
+                            best = v;
+                        }
+                    }
+                }
+                removed[best] = true;
+                victims[victimCount++] = best;
+            }
+            
+            victimCount = first + improve(graph, members, cost, removed, victims, first, victimCount - first,
+                                          inSubgraph, inDegree, queue);
+        }
+        
+        int[] result = Arrays.copyOf(victims, victimCount);
+        Arrays.sort(result);
+        return result;
+    }
+    
+    /**
+     * Local search over one component's victims, held in victims[from, from + count).
+     * Returns the new number of victims.
+     */
+    private static int improve(WaitForGraph graph, int[] members, double[] cost, boolean[] removed,
+                               int[] victims, int from, int count,
+                               boolean[] inSubgraph, int[] inDegree, int[] queue) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            sortByCostDescending(victims, from, count, cost);
+            
+            // Drop victims whose cycles are already broken by the others
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int v = victims[from + i];
+                removed[v] = false;
+                if (graph.hasCycle(members, removed, inSubgraph, inDegree, queue)) {
+                    removed[v] = true;
+                    victims[from + kept++] = v;
+                } else {
+                    improved = true;
+                }
+            }
+            count = kept;
+            
+            if (members.length > MAX_SWAP_COMPONENT) {
+                break;
+            }
+            
+            // Replace a victim by the cheapest single process that does its job
+            for (int i = 0; i < count; i++) {
+                int v = victims[from + i];
+                removed[v] = false;
+                int replacement = -1;
+                for (int u : members) {
+                    if (!removed[u] && u != v && cost[u] < cost[v]
+                            && (replacement < 0 || cost[u] < cost[replacement])) {
+                        removed[u] = true;
+                        if (!graph.hasCycle(members, removed, inSubgraph, inDegree, queue)) {
+                            replacement = u;
+                        }
+                        removed[u] = false;
+                    }
+                }
+                if (replacement >= 0) {
+                    removed[replacement] = true;
+                    victims[from + i] = replacement;
+                    improved = true;
+                } else {
+                    removed[v] = true;
+                }
+            }
+        }
+        return count;
+    }
+    
+    private static void sortByCostDescending(int[] victims, int from, int count, double[] cost) {
+        for (int i = from + 1; i < from + count; i++) {
+            int v = victims[i];
+            int j = i - 1;
+            while (j >= from && cost[victims[j]] < cost[v]) {
+                victims[j + 1] = victims[j];
+                j--;
+            }
+            victims[j + 1] = v;
+        }
+    }
+}
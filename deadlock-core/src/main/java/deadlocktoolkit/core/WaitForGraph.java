@@ -0,0 +1,358 @@
+package deadlocktoolkit.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Process-to-process wait-for graph derived from a resource allocation graph.
+ *
+ * Process p waits for process q if p has a request edge on a resource that q
+ * holds. Edges are stored in compressed sparse row form (an offsets array and
+ * a targets array), so traversals touch two flat int arrays instead of
+ * scanning the process-by-resource matrices.
+ */
+public class WaitForGraph {
+    private final int numProcesses;
+    private final int[] offsets;
+    private final int[] targets;
+    
+    private WaitForGraph(int numProcesses, int[] offsets, int[] targets) {
+        this.numProcesses = numProcesses;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+    
+    /**
+     * Builds the wait-for graph for the current state of a resource allocation graph.
+     *
+     * @param rag The resource allocation graph
+     * @return The wait-for graph
+     */
+    public static WaitForGraph from(ResourceAllocationGraph rag) {
+        int[][] allocationEdges = rag.getAllocationEdges();
+        int[][] requestEdges = rag.getRequestEdges();
+        int numProcesses = allocationEdges.length;
+        int numResources = requestEdges.length;
+        
+        // Holders of each resource, in CSR form
+        int[] holderOffsets = new int[numResources + 1];
+        for (int i = 0; i < numProcesses; i++) {
+            for (int j = 0; j < numResources; j++) {
+                if (allocationEdges[i][j] > 0) {
+                    holderOffsets[j + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < numResources; j++) {
+            holderOffsets[j + 1] += holderOffsets[j];
+        }
+        int[] holders = new int[holderOffsets[numResources]];
+        int[] fill = Arrays.copyOf(holderOffsets, numResources);
+        for (int i = 0; i < numProcesses; i++) {
+            for (int j = 0; j < numResources; j++) {
+                if (allocationEdges[i][j] > 0) {
+                    holders[fill[j]++] = i;
+                }
+            }
+        }
+        
+        // Resources requested by each process, in CSR form; the request matrix
+        // is indexed [resource][process], so walk it row by row and bucket
+        int[] requestOffsets = new int[numProcesses + 1];
+        for (int j = 0; j < numResources; j++) {
+            int[] row = requestEdges[j];
+            for (int p = 0; p < numProcesses; p++) {
+                if (row[p] > 0) {
+                    requestOffsets[p + 1]++;
+                }
+            }
+        }
+        for (int p = 0; p < numProcesses; p++) {
+            requestOffsets[p + 1] += requestOffsets[p];
+        }
+        int[] requested = new int[requestOffsets[numProcesses]];
+        fill = Arrays.copyOf(requestOffsets, numProcesses);
+        for (int j = 0; j < numResources; j++) {
+            int[] row = requestEdges[j];
+            for (int p = 0; p < numProcesses; p++) {
+                if (row[p] > 0) {
+                    requested[fill[p]++] = j;
+                }
+            }
+        }
+        
+        // Wait-for edges, deduplicated per source with a stamp array
+        int[] offsets = new int[numProcesses + 1];
+        int[] targets = new int[Math.max(16, requested.length)];
+        int[] stamp = new int[numProcesses];
+        int count = 0;
+        for (int p = 0; p < numProcesses; p++) {
+            for (int r = requestOffsets[p]; r < requestOffsets[p + 1]; r++) {
+                int j = requested[r];
+                for (int h = holderOffsets[j]; h < holderOffsets[j + 1]; h++) {
+                    int q = holders[h];
+                    if (q != p && stamp[q] != p + 1) {
+                        stamp[q] = p + 1;
+                        if (count == targets.length) {
+                            targets = Arrays.copyOf(targets, count * 2);
+                        }
+                        targets[count++] = q;
+                    }
+                }
+            }
+            offsets[p + 1] = count;
+        }
+        return new WaitForGraph(numProcesses, offsets, Arrays.copyOf(targets, count));
+    }
+    
+    /**
+     * Builds the wait-for graph after a change, reusing the rows of this one
+     * that cannot have changed. A process's row is rebuilt only if its own
+     * request edges changed or it requests a resource whose holders changed;
+     * every other row is copied as is. Costs time linear in the size of this
+     * graph plus the rebuilt rows, instead of a full scan of both matrices.
+     *
+     * @param rag The resource allocation graph this graph was built from, as changed since
+     * @param requestsChanged Processes that gained or lost a request edge since
+     * @param holdersChanged Resources that gained or lost a holder since
+     * @return The updated wait-for graph
+     */
+    WaitForGraph update(ResourceAllocationGraph rag, boolean[] requestsChanged, boolean[] holdersChanged) {
+        int[][] allocationEdges = rag.getAllocationEdges();
+        int[][] requestEdges = rag.getRequestEdges();
+        int numResources = requestEdges.length;
+        
+        boolean[] dirty = requestsChanged.clone();
+        for (int j = 0; j < numResources; j++) {
+            if (holdersChanged[j]) {
+                int[] row = requestEdges[j];
+                for (int p = 0; p < numProcesses; p++) {
+                    if (row[p] > 0) {
+                        dirty[p] = true;
+                    }
+                }
+            }
+        }
+        
+        int[] newOffsets = new int[numProcesses + 1];
+        int[] newTargets = new int[Math.max(16, targets.length)];
+        int[] stamp = new int[numProcesses];
+        int count = 0;
+        for (int p = 0; p < numProcesses; p++) {
+            if (!dirty[p]) {
+                int length = offsets[p + 1] - offsets[p];
+                if (count + length > newTargets.length) {
+                    newTargets = Arrays.copyOf(newTargets, Math.max(count + length, newTargets.length * 2));
+                }
+                System.arraycopy(targets, offsets[p], newTargets, count, length);
+                count += length;
+            } else {
+                for (int j = 0; j < numResources; j++) {
+                    if (requestEdges[j][p] == 0) {
+                        continue;
+                    }
+                    for (int q = 0; q < numProcesses; q++) {
+                        if (q != p && allocationEdges[q][j] > 0 && stamp[q] != p + 1) {
+                            stamp[q] = p + 1;
+                            if (count == newTargets.length) {
+                                newTargets = Arrays.copyOf(newTargets, count * 2);
+                            }
+                            newTargets[count++] = q;
+                        }
+                    }
+                }
+            }
+            newOffsets[p + 1] = count;
+        }
+        return new WaitForGraph(numProcesses, newOffsets, Arrays.copyOf(newTargets, count));
+    }
+    
+    public int getNumProcesses() {
+        return numProcesses;
+    }
+    
+    public int getEdgeCount() {
+        return targets.length;
+    }
+    
+    /**
+     * Gets the processes the given process waits for.
+     *
+     * @param processId The waiting process
+     * @return A copy of its successors
+     */
+    public int[] getSuccessors(int processId) {
+        return Arrays.copyOfRange(targets, offsets[processId], offsets[processId + 1]);
+    }
+    
+    /**
+     * Finds the strongly connected components that contain a cycle, using an
+     * iterative form of Tarjan's algorithm. Every deadlocked process belongs
+     * to exactly one of them, and no cycle spans two of them, so each can be
+     * broken independently.
+     *
+     * @return The members of each cyclic component
+     */
+    public List<int[]> findCyclicComponents() {
+        return findCyclicComponents(null, numProcesses);
+    }
+    
+    /**
+     * Finds the cyclic components reachable from the given processes. Any
+     * cycle through one of them is found, and the search touches only the
+     * part of the graph they can reach, which makes it the cheap re-check
+     * after a change that added edges at just those processes.
+     *
+     * @param roots The processes to search from
+     * @return The members of each cyclic component found
+     */
+    public List<int[]> findCyclicComponents(int[] roots) {
+        return findCyclicComponents(roots, roots.length);
+    }
+    
+    // A null roots array means every process
+    private List<int[]> findCyclicComponents(int[] roots, int rootCount) {
+        int[] index = new int[numProcesses];
+        int[] lowLink = new int[numProcesses];
+        boolean[] onStack = new boolean[numProcesses];
+        int[] stack = new int[numProcesses];
+        int[] callStack = new int[numProcesses];
+        int[] edgeCursor = new int[numProcesses];
+        Arrays.fill(index, -1);
+        int nextIndex = 0;
+        int stackSize = 0;
+        List<int[]> components = new ArrayList<>();
+        
+        for (int r = 0; r < rootCount; r++) {
+            int root = roots == null ? r : roots[r];
+            if (index[root] >= 0 || offsets[root] == offsets[root + 1]) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            edgeCursor[root] = offsets[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (edgeCursor[v] < offsets[v + 1]) {
+                    int w = targets[edgeCursor[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        edgeCursor[w] = offsets[w];
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+                if (lowLink[v] == index[v]) {
+                    int start = stackSize;
+                    do {
+                        onStack[stack[--start]] = false;
+                    } while (stack[start] != v);
+                    // Self-loops are never built, so only components of two or more are cyclic
+                    if (stackSize - start > 1) {
+                        int[] members = Arrays.copyOfRange(stack, start, stackSize);
+                        Arrays.sort(members);
+                        components.add(members);
+                    }
+                    stackSize = start;
+                }
+            }
+        }
+        return components;
+    }
+    
+    /**
+     * Checks whether the subgraph induced by the given processes, minus the
+     * removed ones, contains a cycle. Uses Kahn's algorithm, so it runs in
+     * time linear in the size of the subgraph.
+     *
+     * @param members The processes to consider
+     * @param removed Processes to treat as deleted, indexed by process id
+     * @param inSubgraph Scratch array indexed by process id; must be all false and is left all false
+     * @param inDegree Scratch array indexed by process id
+     * @param queue Scratch array at least as long as members
+     * @return True if a cycle remains
+     */
+    boolean hasCycle(int[] members, boolean[] removed, boolean[] inSubgraph, int[] inDegree, int[] queue) {
+        int remaining = 0;
+        for (int v : members) {
+            inDegree[v] = 0;
+            if (!removed[v]) {
+                inSubgraph[v] = true;
+                remaining++;
+            }
+        }
+        
+        for (int v : members) {
+            if (inSubgraph[v]) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if (inSubgraph[targets[e]]) {
+                        inDegree[targets[e]]++;
+                    }
+                }
+            }
+        }
+        
+        int head = 0;
+        int tail = 0;
+        for (int v : members) {
+            if (inSubgraph[v] && inDegree[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (inSubgraph[w] && --inDegree[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        
+        for (int v : members) {
+            inSubgraph[v] = false;
+        }
+        return tail < remaining;
+    }
+    
+    /**
+     * Counts, for each member not removed, its in- and out-degree within the
+     * remaining subgraph.
+     */
+    void degrees(int[] members, boolean[] removed, boolean[] inSubgraph, int[] inDegree, int[] outDegree) {
+        for (int v : members) {
+            inSubgraph[v] = !removed[v];
+            inDegree[v] = 0;
+            outDegree[v] = 0;
+        }
+        for (int v : members) {
+            if (inSubgraph[v]) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    if (inSubgraph[w]) {
+                        outDegree[v]++;
+                        inDegree[w]++;
+                    }
+                }
+            }
+        }
+        for (int v : members) {
+            inSubgraph[v] = false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package deadlocktoolkit.experiment;
+
+/**
+ * Summary statistics over all repetitions of one parameter combination.
+ */
+public final class AggregateResult {
+    private final RunConfig config;
+    private int runs;
+    private int failures;
+    private double throughputSum;
+    private double throughputMin = Double.MAX_VALUE;
+    private double throughputMax;
+    private double detectionMeanSum;
+    private long detectionMax;
+    private long deadlocks;
+    private long terminations;
+    private long denied;
+    
+    AggregateResult(RunConfig config) {
+        this.config = config;
+    }
+    
+    void add(RunResult result) {
+        if (result.isFailed()) {
+            failures++;
+            return;
+        }
+        runs++;
+        double throughput = result.getThroughput();
+        throughputSum += throughput;
+        throughputMin = Math.min(throughputMin, throughput);
+        throughputMax = Math.max(throughputMax, throughput);
+        detectionMeanSum += result.getDetectionMeanNanos();
+        detectionMax = Math.max(detectionMax, result.getDetectionMaxNanos());
+        deadlocks += result.getDeadlocks();
+        terminations += result.getTerminations();
+        denied += result.getDenied();
+    }
+    
+    /**
+     * Gets the configuration of the first run in the group; its repetition and
+     * seed are not meaningful for the aggregate.
+     *
+     * @return A representative configuration
+     */
+    public RunConfig getConfig() {
+        return config;
+    }
+    
+    public int getRuns() {
+        return runs;
+    }
+    
+    public int getFailures() {
+        return failures;
+    }
+    
+    public double getMeanThroughput() {
+        return runs > 0 ? throughputSum / runs : 0.0;
+    }
+    
+    public double getMinThroughput() {
+        return runs > 0 ? throughputMin : 0.0;
+    }
+    
+    public double getMaxThroughput() {
+        return throughputMax;
+    }
+    
+    public double getMeanDetectionNanos() {
+        return runs > 0 ? detectionMeanSum / runs : 0.0;
+    }
+    
+    public long getMaxDetectionNanos() {
+        return detectionMax;
+    }
+    
+    public double getMeanDeadlocks() {
+        return runs > 0 ? (double) deadlocks / runs : 0.0;
+    }
+    
+    public double getMeanTerminations() {
+        return runs > 0 ? (double) terminations / runs : 0.0;
+    }
+    
+    public double getMeanDenied() {
+        return runs > 0 ? (double) denied / runs : 0.0;
+    }
+}
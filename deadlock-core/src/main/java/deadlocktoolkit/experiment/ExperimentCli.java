@@ -0,0 +1,127 @@
+package deadlocktoolkit.experiment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless entry point for running batches of experiments.
+ *
+ * <pre>
+ * java -cp deadlock-core.jar deadlocktoolkit.experiment.ExperimentCli spec.properties
+ *      [--format csv|json] [--output runs.csv] [--summary summary.csv] [--threads N]
+ * </pre>
+ *
+ * Per-run results stream to the output (standard output by default) as runs
+ * complete. If a summary file is given, one aggregate per parameter
+ * combination is written there once all runs have finished.
+ */
+public class ExperimentCli {
+    
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            System.exit(130);
+        }
+    }
+    
+    static int run(String[] args) throws IOException, InterruptedException {
+        Path specPath = null;
+        Path outputPath = null;
+        Path summaryPath = null;
+        ResultWriter.Format format = ResultWriter.Format.CSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--format" -> format = ResultWriter.Format.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT));
+                case "--output" -> outputPath = Path.of(value(args, ++i, arg));
+                case "--summary" -> summaryPath = Path.of(value(args, ++i, arg));
+                case "--threads" -> threads = Integer.parseInt(value(args, ++i, arg));
+                default -> {
+                    if (arg.startsWith("--") || specPath != null) {
+                        throw new IllegalArgumentException("Unexpected argument: " + arg);
+                    }
+                    specPath = Path.of(arg);
+                }
+            }
+        }
+        if (specPath == null) {
+            throw new IllegalArgumentException("Missing experiment spec");
+        }
+        
+        List<RunConfig> runs = ExperimentSpec.load(specPath).expand();
+        System.err.println("Running " + runs.size() + " experiments on " + threads + " threads");
+        
+        long start = System.nanoTime();
+        List<RunResult> results;
+        try (Writer out = open(outputPath)) {
+            ResultWriter writer = new ResultWriter(out, format);
+            results = new ExperimentRunner(threads).run(runs, result -> {
+                try {
+                    writer.writeRun(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        if (summaryPath != null) {
+            try (Writer out = Files.newBufferedWriter(summaryPath, StandardCharsets.UTF_8)) {
+                ResultWriter writer = new ResultWriter(out, format);
+                for (AggregateResult aggregate : ExperimentRunner.aggregate(results)) {
+                    writer.writeAggregate(aggregate);
+                }
+            }
+        }
+        
+        long failures = results.stream().filter(RunResult::isFailed).count();
+        System.err.printf(Locale.ROOT, "Completed %d experiments in %.1f s (%d failed)%n",
+                          results.size(), (System.nanoTime() - start) / 1e9, failures);
+        return failures > 0 ? 1 : 0;
+    }
+    
+    private static Writer open(Path path) throws IOException {
+        if (path == null) {
+            // Don't let closing the writer close standard output
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+    }
+    
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: ExperimentCli <spec.properties> [--format csv|json] "
+                           + "[--output file] [--summary file] [--threads n]");
+    }
+}
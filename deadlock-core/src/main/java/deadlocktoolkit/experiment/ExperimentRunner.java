@@ -0,0 +1,191 @@
+package deadlocktoolkit.experiment;
+
+import deadlocktoolkit.core.BankersAlgorithm;
+import deadlocktoolkit.core.DeadlockEngine;
+import deadlocktoolkit.core.LatencyHistogram;
+import deadlocktoolkit.core.ScenarioGenerator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs experiment configurations in parallel, each on its own engine instance.
+ *
+ * A run generates its scenario from the run's seed, applies the prevention
+ * strategy, resolves any deadlock it starts with and then drives a seeded
+ * stream of single-unit requests and releases through the engine, running
+ * detection (and resolution) every {@code detectEvery} operations. Engines are never shared between
+ * threads, so runs need no locking and scale with the number of cores.
+ */
+public class ExperimentRunner {
+    private final int threads;
+    
+    public ExperimentRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public ExperimentRunner(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.threads = threads;
+    }
+    
+    /**
+     * Runs all configurations and hands each result to the sink as soon as it
+     * completes. The sink is always called on the calling thread, so it does
+     * not need to be thread-safe.
+     *
+     * @param runs The configurations to run
+     * @param sink Receives results in completion order
+     * @return All results in configuration order
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public List<RunResult> run(List<RunConfig> runs, Consumer<RunResult> sink) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "experiment-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ExecutorCompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+            for (RunConfig config : runs) {
+                completion.submit(() -> runOne(config));
+            }
+            
+            RunResult[] results = new RunResult[runs.size()];
+            for (int i = 0; i < runs.size(); i++) {
+                RunResult result;
+                try {
+                    result = completion.take().get();
+                } catch (ExecutionException e) {
+                    // runOne catches its own failures, so this is an Error escaping
+                    throw new IllegalStateException("Experiment worker failed", e.getCause());
+                }
+                results[result.getConfig().getIndex()] = result;
+                sink.accept(result);
+            }
+            return List.of(results);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Groups results by parameter combination.
+     *
+     * @param results The results to aggregate
+     * @return One aggregate per combination, in the order first seen
+     */
+    public static List<AggregateResult> aggregate(List<RunResult> results) {
+        Map<String, AggregateResult> groups = new LinkedHashMap<>();
+        for (RunResult result : results) {
+            RunConfig config = result.getConfig();
+            groups.computeIfAbsent(config.getGroupKey(), _ -> new AggregateResult(config)).add(result);
+        }
+        return new ArrayList<>(groups.values());
+    }
+    
+    /**
+     * Executes a single run on a fresh engine.
+     *
+     * @param config The run configuration
+     * @return The run's measurements, or a failed result if it threw
+     */
+    public static RunResult runOne(RunConfig config) {
+        DeadlockEngine engine = new DeadlockEngine();
+        try {
+            engine.setHistoryRecording(false);
+            SplittableRandom random = new SplittableRandom(config.getSeed());
+            generateScenario(engine, config, random.nextLong());
+            if (config.getStrategy() != null) {
+                engine.getDeadlockPrevention().apply(config.getStrategy());
+            }
+            
+            LatencyHistogram detection = new LatencyHistogram();
+            int[] outcome = new int[2]; // deadlocks, terminations
+            detectAndResolve(engine, config, detection, outcome);
+            
+            BankersAlgorithm bankersAlg = engine.getBankersAlgorithm();
+            long granted = 0;
+            long denied = 0;
+            long releases = 0;
+            
+            long start = System.nanoTime();
+            for (int op = 1; op <= config.getOperations(); op++) {
+                int processId = random.nextInt(config.getProcesses());
+                int resourceId = random.nextInt(config.getResources());
+                if (bankersAlg.isProcessActive(processId)) {
+                    int need = bankersAlg.getNeedMatrix()[processId][resourceId];
+                    int held = bankersAlg.getAllocationMatrix()[processId][resourceId];
+                    if (need > 0 && (held == 0 || random.nextBoolean())) {
+                        if (engine.requestResource(processId, resourceId, 1)) {
+                            granted++;
+                        } else {
+                            denied++;
+                        }
+                    } else if (held > 0) {
+                        engine.releaseResource(processId, resourceId, 1);
+                        releases++;
+                    }
+                }
+                if (op % config.getDetectEvery() == 0) {
+                    detectAndResolve(engine, config, detection, outcome);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            return new RunResult(config, elapsed, granted, denied, releases, outcome[0], outcome[1],
+                                 detection.getCount(), detection.getMean(),
+                                 detection.getPercentile(99.0), detection.getMax());
+        } catch (RuntimeException e) {
+            return RunResult.failed(config, e);
+        } finally {
+            engine.shutdown();
+        }
+    }
+    
+    private static void generateScenario(DeadlockEngine engine, RunConfig config, long seed) {
+        ScenarioGenerator generator = new ScenarioGenerator(engine, seed);
+        switch (config.getScenario()) {
+            case RANDOM:
+                generator.generateRandomScenario(config.getProcesses(), config.getResources(),
+                                                 config.getDeadlockProbability());
+                break;
+            case CIRCULAR_WAIT:
+                generator.generateCircularWaitScenario(config.getProcesses());
+                break;
+            case DINING_PHILOSOPHERS:
+                generator.generateDiningPhilosophersScenario(config.getProcesses());
+                break;
+        }
+    }
+    
+    /**
+     * Runs a timed detection pass and, if it finds a deadlock, terminates
+     * victims until the system is clear.
+     */
+    private static void detectAndResolve(DeadlockEngine engine, RunConfig config,
+                                         LatencyHistogram detection, int[] outcome) {
+        long start = System.nanoTime();
+        boolean deadlocked = engine.detectDeadlock();
+        detection.record(System.nanoTime() - start);
+        if (!deadlocked) {
+            return;
+        }
+        outcome[0]++;
+        
+        // A resolution may take several victims; count each one, and bound the
+        // loop by the process count in case a round leaves a cycle behind
+        for (int i = 0; i < config.getProcesses() && !engine.getDeadlockedProcesses().isEmpty(); i++) {
+            outcome[1] += engine.resolveDeadlock().size();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package deadlocktoolkit.experiment;
+
+import deadlocktoolkit.core.DeadlockPrevention.PreventionStrategy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Describes a batch of experiments as the cross product of its parameter lists.
+ *
+ * Specs are plain properties files. List-valued keys take comma-separated
+ * values, for example:
+ *
+ * <pre>
+ * scenario=RANDOM,DINING_PHILOSOPHERS
+ * processes=10,50,100
+ * resources=5,10
+ * deadlockProbability=0.0,0.5,1.0
+ * strategy=NONE,RESOURCE_ORDERING,PREEMPTION
+ * repetitions=20
+ * operations=10000
+ * detectEvery=100
+ * seed=1
+ * </pre>
+ *
+ * The circular wait and dining philosophers scenarios size the resources to
+ * the process count, so the resources and probability lists only multiply
+ * random scenarios.
+ */
+public class ExperimentSpec {
+    
+    public enum Scenario {
+        RANDOM,
+        CIRCULAR_WAIT,
+        DINING_PHILOSOPHERS
+    }
+    
+    /** Strategy list entry that runs a scenario without any prevention strategy. */
+    public static final String NO_STRATEGY = "NONE";
+    
+    private List<Scenario> scenarios = List.of(Scenario.RANDOM);
+    private List<Integer> processCounts = List.of(10);
+    private List<Integer> resourceCounts = List.of(5);
+    private List<Double> deadlockProbabilities = List.of(0.5);
+    private List<PreventionStrategy> strategies = Collections.singletonList(null);
+    private int repetitions = 1;
+    private int operations = 10_000;
+    private int detectEvery = 100;
+    private long seed = 1;
+    
+    /**
+     * Loads a spec from a properties file. Missing keys keep their defaults.
+     *
+     * @param path The spec file
+     * @return The parsed spec
+     * @throws IOException If the file can't be read
+     */
+    public static ExperimentSpec load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+    
+    public static ExperimentSpec fromProperties(Properties properties) {
+        ExperimentSpec spec = new ExperimentSpec();
+        String value;
+        if ((value = properties.getProperty("scenario")) != null) {
+            List<Scenario> scenarios = new ArrayList<>();
+            for (String item : split(value)) {
+                scenarios.add(Scenario.valueOf(item.toUpperCase(Locale.ROOT)));
+            }
+            spec.setScenarios(scenarios);
+        }
+        if ((value = properties.getProperty("processes")) != null) {
+            spec.setProcessCounts(parseInts("processes", value));
+        }
+        if ((value = properties.getProperty("resources")) != null) {
+            spec.setResourceCounts(parseInts("resources", value));
+        }
+        if ((value = properties.getProperty("deadlockProbability")) != null) {
+            List<Double> probabilities = new ArrayList<>();
+            for (String item : split(value)) {
+                probabilities.add(Double.parseDouble(item));
+            }
+            spec.setDeadlockProbabilities(probabilities);
+        }
+        if ((value = properties.getProperty("strategy")) != null) {
+            List<PreventionStrategy> strategies = new ArrayList<>();
+            for (String item : split(value)) {
+                String name = item.toUpperCase(Locale.ROOT);
+                strategies.add(NO_STRATEGY.equals(name) ? null : PreventionStrategy.valueOf(name));
+            }
+            spec.setStrategies(strategies);
+        }
+        if ((value = properties.getProperty("repetitions")) != null) {
+            spec.setRepetitions(Integer.parseInt(value.trim()));
+        }
+        if ((value = properties.getProperty("operations")) != null) {
+            spec.setOperations(Integer.parseInt(value.trim()));
+        }
+        if ((value = properties.getProperty("detectEvery")) != null) {
+            spec.setDetectEvery(Integer.parseInt(value.trim()));
+        }
+        if ((value = properties.getProperty("seed")) != null) {
+            spec.setSeed(Long.parseLong(value.trim()));
+        }
+        return spec;
+    }
+    
+    /**
+     * Expands the spec into one configuration per run. Each run gets its own
+     * seed derived from the spec seed and its index, so results are repeatable
+     * regardless of how runs are scheduled across threads.
+     *
+     * @return The run configurations in a stable order
+     */
+    public List<RunConfig> expand() {
+        List<RunConfig> runs = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            boolean random = scenario == Scenario.RANDOM;
+            List<Integer> resources = random ? resourceCounts : List.of(0);
+            List<Double> probabilities = random ? deadlockProbabilities : List.of(0.0);
+            for (int processes : processCounts) {
+                for (int numResources : resources) {
+                    for (double probability : probabilities) {
+                        for (PreventionStrategy strategy : strategies) {
+                            for (int rep = 0; rep < repetitions; rep++) {
+                                int index = runs.size();
+                                runs.add(new RunConfig(index, scenario, processes,
+                                    random ? numResources : processes, probability, strategy, rep,
+                                    seed * 1_000_003L + index, operations, detectEvery));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+    
+    private static String[] split(String value) {
+        String[] items = value.split(",");
+        for (int i = 0; i < items.length; i++) {
+            items[i] = items[i].trim();
+        }
+        return items;
+    }
+    
+    private static List<Integer> parseInts(String key, String value) {
+        List<Integer> numbers = new ArrayList<>();
+        for (String item : split(value)) {
+            int number = Integer.parseInt(item);
+            if (number < 2) {
+                throw new IllegalArgumentException(key + " must be at least 2, got " + number);
+            }
+            numbers.add(number);
+        }
+        return numbers;
+    }
+    
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+    
+    public void setScenarios(List<Scenario> scenarios) {
+        this.scenarios = List.copyOf(scenarios);
+    }
+    
+    public List<Integer> getProcessCounts() {
+        return processCounts;
+    }
+    
+    public void setProcessCounts(List<Integer> processCounts) {
+        this.processCounts = List.copyOf(processCounts);
+    }
+    
+    public List<Integer> getResourceCounts() {
+        return resourceCounts;
+    }
+    
+    public void setResourceCounts(List<Integer> resourceCounts) {
+        this.resourceCounts = List.copyOf(resourceCounts);
+    }
+    
+    public List<Double> getDeadlockProbabilities() {
+        return deadlockProbabilities;
+    }
+    
+    public void setDeadlockProbabilities(List<Double> deadlockProbabilities) {
+        this.deadlockProbabilities = List.copyOf(deadlockProbabilities);
+    }
+    
+    /**
+     * Gets the prevention strategies to compare. A null entry means no strategy.
+     *
+     * @return The strategies
+     */
+    public List<PreventionStrategy> getStrategies() {
+        return strategies;
+    }
+    
+    public void setStrategies(List<PreventionStrategy> strategies) {
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(strategies));
+    }
+    
+    public int getRepetitions() {
+        return repetitions;
+    }
+    
+    public void setRepetitions(int repetitions) {
+        this.repetitions = repetitions;
+    }
+    
+    public int getOperations() {
+        return operations;
+    }
+    
+    public void setOperations(int operations) {
+        this.operations = operations;
+    }
+    
+    public int getDetectEvery() {
+        return detectEvery;
+    }
+    
+    public void setDetectEvery(int detectEvery) {
+        this.detectEvery = Math.max(1, detectEvery);
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
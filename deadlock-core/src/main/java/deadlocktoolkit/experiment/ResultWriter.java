@@ -0,0 +1,154 @@
+package deadlocktoolkit.experiment;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes run and aggregate results as CSV or JSON Lines.
+ *
+ * JSON output holds one object per line rather than a single array, so a
+ * partially written file from an interrupted overnight batch is still usable.
+ * Every record is flushed as soon as it is written.
+ */
+public class ResultWriter implements Flushable {
+    
+    public enum Format {
+        CSV,
+        JSON
+    }
+    
+    private static final String[] RUN_COLUMNS = {
+        "run", "scenario", "processes", "resources", "deadlockProbability", "strategy",
+        "repetition", "seed", "operations", "elapsedMs", "throughput", "granted", "denied",
+        "releases", "deadlocks", "terminations", "detections", "detectionMeanUs",
+        "detectionP99Us", "detectionMaxUs", "error"
+    };
+    
+    private static final String[] AGGREGATE_COLUMNS = {
+        "scenario", "processes", "resources", "deadlockProbability", "strategy", "runs",
+        "failures", "throughputMean", "throughputMin", "throughputMax", "detectionMeanUs",
+        "detectionMaxUs", "deadlocksMean", "terminationsMean", "deniedMean"
+    };
+    
+    private final Writer out;
+    private final Format format;
+    private boolean headerWritten;
+    
+    public ResultWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+    
+    public void writeRun(RunResult result) throws IOException {
+        RunConfig config = result.getConfig();
+        writeRecord(RUN_COLUMNS, new Object[] {
+            config.getIndex(), config.getScenario(), config.getProcesses(), config.getResources(),
+            config.getDeadlockProbability(), config.getStrategyName(), config.getRepetition(),
+            config.getSeed(), result.getOperations(), result.getElapsedNanos() / 1e6,
+            result.getThroughput(), result.getGranted(), result.getDenied(), result.getReleases(),
+            result.getDeadlocks(), result.getTerminations(), result.getDetections(),
+            result.getDetectionMeanNanos() / 1e3, result.getDetectionP99Nanos() / 1e3,
+            result.getDetectionMaxNanos() / 1e3, result.getError()
+        });
+    }
+    
+    public void writeAggregate(AggregateResult aggregate) throws IOException {
+        RunConfig config = aggregate.getConfig();
+        writeRecord(AGGREGATE_COLUMNS, new Object[] {
+            config.getScenario(), config.getProcesses(), config.getResources(),
+            config.getDeadlockProbability(), config.getStrategyName(), aggregate.getRuns(),
+            aggregate.getFailures(), aggregate.getMeanThroughput(), aggregate.getMinThroughput(),
+            aggregate.getMaxThroughput(), aggregate.getMeanDetectionNanos() / 1e3,
+            aggregate.getMaxDetectionNanos() / 1e3, aggregate.getMeanDeadlocks(),
+            aggregate.getMeanTerminations(), aggregate.getMeanDenied()
+        });
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    private void writeRecord(String[] columns, Object[] values) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        if (format == Format.CSV) {
+            if (!headerWritten) {
+                out.write(String.join(",", columns));
+                out.write('\n');
+                headerWritten = true;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(line, values[i]);
+            }
+        } else {
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(columns[i]).append("\":");
+                appendJson(line, values[i]);
+            }
+            line.append('}');
+        }
+        line.append('\n');
+        out.write(line.toString());
+        out.flush();
+    }
+    
+    private static void appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Double d) {
+            line.append(formatDouble(d));
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+            line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(text);
+        }
+    }
+    
+    private static void appendJson(StringBuilder line, Object value) {
+        if (value == null) {
+            line.append("null");
+        } else if (value instanceof Double d) {
+            line.append(Double.isFinite(d) ? formatDouble(d) : "null");
+        } else if (value instanceof Number) {
+            line.append(value);
+        } else {
+            line.append('"');
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                    }
+                }
+            }
+            line.append('"');
+        }
+    }
+    
+    private static String formatDouble(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,98 @@
+package deadlocktoolkit.experiment;
+
+import deadlocktoolkit.core.DeadlockPrevention.PreventionStrategy;
+
+/**
+ * The parameters of a single experiment run.
+ */
+public final class RunConfig {
+    private final int index;
+    private final ExperimentSpec.Scenario scenario;
+    private final int processes;
+    private final int resources;
+    private final double deadlockProbability;
+    private final PreventionStrategy strategy;
+    private final int repetition;
+    private final long seed;
+    private final int operations;
+    private final int detectEvery;
+    
+    public RunConfig(int index, ExperimentSpec.Scenario scenario, int processes, int resources,
+                     double deadlockProbability, PreventionStrategy strategy, int repetition,
+                     long seed, int operations, int detectEvery) {
+        this.index = index;
+        this.scenario = scenario;
+        this.processes = processes;
+        this.resources = resources;
+        this.deadlockProbability = deadlockProbability;
+        this.strategy = strategy;
+        this.repetition = repetition;
+        this.seed = seed;
+        this.operations = operations;
+        this.detectEvery = detectEvery;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public ExperimentSpec.Scenario getScenario() {
+        return scenario;
+    }
+    
+    public int getProcesses() {
+        return processes;
+    }
+    
+    public int getResources() {
+        return resources;
+    }
+    
+    public double getDeadlockProbability() {
+        return deadlockProbability;
+    }
+    
+    /**
+     * Gets the prevention strategy applied after the scenario is generated.
+     *
+     * @return The strategy, or null if none is applied
+     */
+    public PreventionStrategy getStrategy() {
+        return strategy;
+    }
+    
+    public String getStrategyName() {
+        return strategy != null ? strategy.name() : ExperimentSpec.NO_STRATEGY;
+    }
+    
+    public int getRepetition() {
+        return repetition;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public int getOperations() {
+        return operations;
+    }
+    
+    public int getDetectEvery() {
+        return detectEvery;
+    }
+    
+    /**
+     * Gets a key identifying the parameter combination, ignoring the repetition.
+     * Runs with the same key are aggregated together.
+     *
+     * @return The group key
+     */
+    public String getGroupKey() {
+        return scenario + "/" + processes + "/" + resources + "/" + deadlockProbability + "/" + getStrategyName();
+    }
+    
+    @Override
+    public String toString() {
+        return "Run " + index + " [" + getGroupKey() + " #" + repetition + "]";
+    }
+}
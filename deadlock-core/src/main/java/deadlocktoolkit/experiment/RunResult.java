@@ -0,0 +1,134 @@
+package deadlocktoolkit.experiment;
+
+/**
+ * The measurements taken during one experiment run.
+ */
+public final class RunResult {
+    private final RunConfig config;
+    private final long elapsedNanos;
+    private final long granted;
+    private final long denied;
+    private final long releases;
+    private final int deadlocks;
+    private final int terminations;
+    private final long detections;
+    private final double detectionMeanNanos;
+    private final long detectionP99Nanos;
+    private final long detectionMaxNanos;
+    private final String error;
+    
+    RunResult(RunConfig config, long elapsedNanos, long granted, long denied, long releases,
+              int deadlocks, int terminations, long detections, double detectionMeanNanos,
+              long detectionP99Nanos, long detectionMaxNanos) {
+        this(config, elapsedNanos, granted, denied, releases, deadlocks, terminations,
+             detections, detectionMeanNanos, detectionP99Nanos, detectionMaxNanos, null);
+    }
+    
+    private RunResult(RunConfig config, long elapsedNanos, long granted, long denied, long releases,
+                      int deadlocks, int terminations, long detections, double detectionMeanNanos,
+                      long detectionP99Nanos, long detectionMaxNanos, String error) {
+        this.config = config;
+        this.elapsedNanos = elapsedNanos;
+        this.granted = granted;
+        this.denied = denied;
+        this.releases = releases;
+        this.deadlocks = deadlocks;
+        this.terminations = terminations;
+        this.detections = detections;
+        this.detectionMeanNanos = detectionMeanNanos;
+        this.detectionP99Nanos = detectionP99Nanos;
+        this.detectionMaxNanos = detectionMaxNanos;
+        this.error = error;
+    }
+    
+    /**
+     * Creates the result of a run that threw before it finished.
+     *
+     * @param config The run's configuration
+     * @param error The failure
+     * @return A result with no measurements
+     */
+    static RunResult failed(RunConfig config, Throwable error) {
+        return new RunResult(config, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, String.valueOf(error));
+    }
+    
+    public RunConfig getConfig() {
+        return config;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    public long getGranted() {
+        return granted;
+    }
+    
+    public long getDenied() {
+        return denied;
+    }
+    
+    public long getReleases() {
+        return releases;
+    }
+    
+    public long getOperations() {
+        return granted + denied + releases;
+    }
+    
+    /**
+     * Gets the number of engine operations (requests and releases) per second.
+     *
+     * @return The throughput of the run
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? getOperations() * 1e9 / elapsedNanos : 0.0;
+    }
+    
+    /**
+     * Gets the number of detection passes that found a deadlock.
+     *
+     * @return The number of deadlocks
+     */
+    public int getDeadlocks() {
+        return deadlocks;
+    }
+    
+    /**
+     * Gets the number of processes terminated to resolve deadlocks.
+     *
+     * @return The number of terminations
+     */
+    public int getTerminations() {
+        return terminations;
+    }
+    
+    public long getDetections() {
+        return detections;
+    }
+    
+    public double getDetectionMeanNanos() {
+        return detectionMeanNanos;
+    }
+    
+    public long getDetectionP99Nanos() {
+        return detectionP99Nanos;
+    }
+    
+    public long getDetectionMaxNanos() {
+        return detectionMaxNanos;
+    }
+    
+    public boolean isFailed() {
+        return error != null;
+    }
+    
+    /**
+     * Gets the failure that ended the run early.
+     *
+     * @return The error description, or null if the run completed
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,258 @@
+package deadlocktoolkit.experiment;
+
+import deadlocktoolkit.core.DeadlockEngine;
+import deadlocktoolkit.core.DeadlockPrevention;
+import deadlocktoolkit.core.DeadlockPrevention.PreventionStrategy;
+import deadlocktoolkit.core.DeadlockRecovery;
+import deadlocktoolkit.simulation.DiscreteEventSimulator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs one seeded simulated workload under several prevention strategies side
+ * by side and compares throughput, wait latency, aborts and deadlocks.
+ *
+ * Each strategy gets its own engine and DiscreteEventSimulator, set up by the
+ * same workload callback, so every run sees the same arrivals, claims and
+ * per-process request streams. Runs execute in parallel, one engine per
+ * thread. A null strategy stands for Banker's avoidance, the baseline; every
+ * other strategy runs with avoidance switched off, so that it alone keeps the
+ * system out of deadlock, with periodic detection and termination as the
+ * safety net.
+ */
+public class StrategyComparison {
+    
+    /** Name reported for the null strategy, plain Banker's avoidance. */
+    public static final String BANKERS = "BANKERS";
+    
+    /** Banker's avoidance and the prevention strategies that work on new requests. */
+    public static final List<PreventionStrategy> DEFAULT_STRATEGIES = Collections.unmodifiableList(Arrays.asList(
+        null, PreventionStrategy.RESOURCE_ORDERING, PreventionStrategy.WAIT_DIE, PreventionStrategy.WOUND_WAIT,
+        PreventionStrategy.TIMEOUT, PreventionStrategy.ALL_OR_NOTHING));
+    
+    /**
+     * A compared quantity, one value per strategy.
+     */
+    public enum Metric {
+        THROUGHPUT("Tasks per virtual second", report -> report.getThroughput()),
+        MEAN_WAIT_MS("Mean task wait (ms)", report -> report.getWaitTime().getMean() / 1e6),
+        P99_WAIT_MS("p99 task wait (ms)", report -> report.getWaitTime().getPercentile(99) / 1e6),
+        MAX_WAIT_MS("Max task wait (ms)", report -> report.getWaitTime().getMax() / 1e6),
+        ABORTS("Aborts", report -> report.getAborts()),
+        TIMEOUTS("Timed-out requests", report -> report.getTimedOutRequests()),
+        RESTARTS("Restarted tasks", report -> report.getRestarts()),
+        DEADLOCKS("Deadlocks", report -> report.getDeadlocks());
+        
+        private final String label;
+        private final ToDoubleFunction<DiscreteEventSimulator.Report> extractor;
+        
+        Metric(String label, ToDoubleFunction<DiscreteEventSimulator.Report> extractor) {
+            this.label = label;
+            this.extractor = extractor;
+        }
+        
+        /**
+         * Gets a human-readable name, suitable as a chart axis label.
+         */
+        public String getLabel() {
+            return label;
+        }
+        
+        double valueOf(DiscreteEventSimulator.Report report) {
+            return extractor.applyAsDouble(report);
+        }
+    }
+    
+    private final Consumer<DiscreteEventSimulator> workload;
+    private final int threads;
+    private long requestTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DeadlockPrevention.DEFAULT_REQUEST_TIMEOUT_MS);
+    
+    /**
+     * Creates a harness using one thread per available core.
+     *
+     * @param workload Configures each run's simulator: sizes, distributions,
+     *        task size and seed. It must set up every simulator identically.
+     */
+    public StrategyComparison(Consumer<DiscreteEventSimulator> workload) {
+        this(workload, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public StrategyComparison(Consumer<DiscreteEventSimulator> workload, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.workload = workload;
+        this.threads = threads;
+    }
+    
+    /**
+     * Sets the request timeout used by the TIMEOUT strategy, in virtual time.
+     */
+    public void setRequestTimeout(long timeout, TimeUnit unit) {
+        this.requestTimeoutNanos = unit.toNanos(timeout);
+    }
+    
+    /**
+     * Simulates the workload under each strategy.
+     *
+     * @param strategies The strategies to compare; null for Banker's avoidance
+     * @param virtualDurationNanos How much virtual time each run simulates
+     * @return The results, in the order of the strategies
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public Result compare(List<PreventionStrategy> strategies, long virtualDurationNanos) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, strategies.size())), r -> {
+            Thread thread = new Thread(r, "strategy-comparison");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<DiscreteEventSimulator.Report>> runs = new ArrayList<>(strategies.size());
+            for (PreventionStrategy strategy : strategies) {
+                runs.add(pool.submit(() -> runOne(strategy, virtualDurationNanos)));
+            }
+            
+            List<String> names = new ArrayList<>(strategies.size());
+            List<DiscreteEventSimulator.Report> reports = new ArrayList<>(strategies.size());
+            for (int i = 0; i < strategies.size(); i++) {
+                try {
+                    reports.add(runs.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Simulation under " + nameOf(strategies.get(i)) + " failed",
+                                                    e.getCause());
+                }
+                names.add(nameOf(strategies.get(i)));
+            }
+            return new Result(names, reports);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private DiscreteEventSimulator.Report runOne(PreventionStrategy strategy, long virtualDurationNanos) {
+        DeadlockEngine engine = new DeadlockEngine();
+        try {
+            DiscreteEventSimulator simulator = new DiscreteEventSimulator(engine);
+            workload.accept(simulator);
+            configure(engine, simulator, strategy);
+            return simulator.run(virtualDurationNanos);
+        } finally {
+            engine.shutdown();
+        }
+    }
+    
+    /**
+     * Puts an engine and simulator into the given strategy's mode.
+     */
+    private void configure(DeadlockEngine engine, DiscreteEventSimulator simulator, PreventionStrategy strategy) {
+        if (strategy == null) {
+            return;
+        }
+        engine.setBankersAvoidance(false);
+        switch (strategy) {
+            case RESOURCE_ORDERING:
+                engine.setOrderingEnforcement(DeadlockPrevention.OrderingEnforcement.REORDER);
+                break;
+            case PREEMPTION:
+                engine.setRecoveryStrategy(DeadlockRecovery.RecoveryStrategy.PREEMPTION);
+                break;
+            case TIMEOUT:
+                engine.setRequestTimeout(requestTimeoutNanos, TimeUnit.NANOSECONDS);
+                break;
+            case ALL_OR_NOTHING:
+                simulator.setAllOrNothing(true);
+                break;
+            case WAIT_DIE:
+                engine.setTimestampScheme(DeadlockPrevention.TimestampScheme.WAIT_DIE);
+                break;
+            case WOUND_WAIT:
+                engine.setTimestampScheme(DeadlockPrevention.TimestampScheme.WOUND_WAIT);
+                break;
+        }
+    }
+    
+    private static String nameOf(PreventionStrategy strategy) {
+        return strategy != null ? strategy.name() : BANKERS;
+    }
+    
+    /**
+     * The simulation reports of a comparison, one per strategy.
+     */
+    public static final class Result {
+        private final List<String> strategyNames;
+        private final List<DiscreteEventSimulator.Report> reports;
+        
+        Result(List<String> strategyNames, List<DiscreteEventSimulator.Report> reports) {
+            this.strategyNames = List.copyOf(strategyNames);
+            this.reports = List.copyOf(reports);
+        }
+        
+        public List<String> getStrategyNames() {
+            return strategyNames;
+        }
+        
+        public List<DiscreteEventSimulator.Report> getReports() {
+            return reports;
+        }
+        
+        /**
+         * Gets one metric for every strategy, e.g. as the bars of a chart.
+         *
+         * @param metric The metric
+         * @return Its values, in the order of getStrategyNames()
+         */
+        public double[] getSeries(Metric metric) {
+            double[] series = new double[reports.size()];
+            for (int i = 0; i < series.length; i++) {
+                series[i] = metric.valueOf(reports.get(i));
+            }
+            return series;
+        }
+        
+        /**
+         * Formats the comparison as CSV, one row per strategy and one column per metric.
+         */
+        public String toCsv() {
+            StringBuilder csv = new StringBuilder("strategy");
+            for (Metric metric : Metric.values()) {
+                csv.append(',').append(metric.name());
+            }
+            csv.append('\n');
+            for (int i = 0; i < reports.size(); i++) {
+                csv.append(strategyNames.get(i));
+                for (Metric metric : Metric.values()) {
+                    csv.append(',').append(String.format(Locale.ROOT, "%.3f", metric.valueOf(reports.get(i))));
+                }
+                csv.append('\n');
+            }
+            return csv.toString();
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder table = new StringBuilder();
+            table.append("STRATEGY COMPARISON\n");
+            table.append("===================\n");
+            table.append(String.format(Locale.ROOT, "%-18s %12s %10s %10s %10s %8s %8s %8s%n", "Strategy",
+                "Tasks/s", "Mean ms", "p99 ms", "Max ms", "Aborts", "Timeouts", "Deadlocks"));
+            for (int i = 0; i < reports.size(); i++) {
+                DiscreteEventSimulator.Report report = reports.get(i);
+                table.append(String.format(Locale.ROOT, "%-18s %12.1f %10.2f %10.2f %10.2f %8d %8d %8d%n",
+                    strategyNames.get(i), report.getThroughput(), Metric.MEAN_WAIT_MS.valueOf(report),
+                    Metric.P99_WAIT_MS.valueOf(report), Metric.MAX_WAIT_MS.valueOf(report),
+                    report.getAborts(), report.getTimedOutRequests(), report.getDeadlocks()));
+            }
+            return table.toString();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package deadlocktoolkit.host;
+
+import deadlocktoolkit.core.BatchResult;
+import deadlocktoolkit.core.Command;
+import deadlocktoolkit.core.DeadlockEngine;
+import deadlocktoolkit.core.PerformanceTracker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Hosts many independent DeadlockEngine instances in one JVM.
+ *
+ * Each simulation is pinned to one shard when it is created, and every
+ * operation on it runs on that shard's single worker thread. An engine is
+ * therefore only ever touched by one thread and needs no locking, while
+ * different simulations run in parallel on different shards. Simulations are
+ * spread round-robin over the shards, so total throughput scales with the
+ * shard count up to the number of cores.
+ */
+public class EngineHost implements AutoCloseable {
+    private final ThreadPoolExecutor[] shards;
+    private final AtomicLongArray executedCommands;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private volatile boolean closed;
+    
+    /**
+     * Creates a host with one shard per available core.
+     */
+    public EngineHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public EngineHost(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Need at least one shard");
+        }
+        shards = new ThreadPoolExecutor[shardCount];
+        executedCommands = new AtomicLongArray(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            String name = "engine-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Creates a simulation with a fresh engine. History recording is turned off,
+     * since hosted simulations are driven programmatically; callers that want
+     * undo can turn it back on through {@link #submit}.
+     *
+     * @param simulationId The id commands are routed by
+     * @return A future completed once the engine exists on its shard
+     */
+    public CompletableFuture<Void> createSimulation(String simulationId) {
+        return createSimulation(simulationId, engine -> engine.setHistoryRecording(false));
+    }
+    
+    /**
+     * Creates a simulation, running the given setup on the engine's shard.
+     *
+     * @param simulationId The id commands are routed by
+     * @param setup Configures the new engine, for example by calling initialize
+     * @return A future completed once setup has run
+     */
+    public CompletableFuture<Void> createSimulation(String simulationId, Consumer<DeadlockEngine> setup) {
+        ensureOpen();
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.length);
+        Tenant tenant = new Tenant(shard);
+        if (tenants.putIfAbsent(simulationId, tenant) != null) {
+            throw new IllegalArgumentException("Simulation already exists: " + simulationId);
+        }
+        return CompletableFuture.runAsync(() -> {
+            tenant.engine = new DeadlockEngine();
+            // Monitoring ticks queue on the shard like every other operation
+            tenant.engine.setMonitoringExecutor(shards[shard]);
+            try {
+                setup.accept(tenant.engine);
+            } catch (RuntimeException e) {
+                tenants.remove(simulationId, tenant);
+                tenant.engine.shutdown();
+                throw e;
+            }
+        }, shards[shard]);
+    }
+    
+    /**
+     * Shuts down a simulation's engine and removes it from the host.
+     *
+     * @param simulationId The simulation to remove
+     * @return A future completed once the engine has been shut down
+     */
+    public CompletableFuture<Void> removeSimulation(String simulationId) {
+        Tenant tenant = tenants.remove(simulationId);
+        if (tenant == null) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("Unknown simulation: " + simulationId));
+        }
+        return CompletableFuture.runAsync(() -> {
+            if (tenant.engine != null) {
+                tenant.engine.shutdown();
+            }
+        }, shards[tenant.shard]);
+    }
+    
+    /**
+     * Runs an action against a simulation's engine on its shard thread. The
+     * action must not hand the engine to other threads.
+     *
+     * @param simulationId The target simulation
+     * @param action The action to run
+     * @return A future with the action's result
+     */
+    public <T> CompletableFuture<T> submit(String simulationId, Function<DeadlockEngine, T> action) {
+        ensureOpen();
+        Tenant tenant = tenants.get(simulationId);
+        if (tenant == null) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("Unknown simulation: " + simulationId));
+        }
+        int shard = tenant.shard;
+        return CompletableFuture.supplyAsync(() -> {
+            executedCommands.lazySet(shard, executedCommands.get(shard) + 1);
+            return action.apply(tenant.engine);
+        }, shards[shard]);
+    }
+    
+    public CompletableFuture<Void> initialize(String simulationId, int numProcesses, int numResources,
+                                              int[] availableResources) {
+        return submit(simulationId, engine -> {
+            engine.initialize(numProcesses, numResources, availableResources);
+            return null;
+        });
+    }
+    
+    public CompletableFuture<Boolean> requestResource(String simulationId, int processId, int resourceId, int units) {
+        return submit(simulationId, engine -> engine.requestResource(processId, resourceId, units));
+    }
+    
+    public CompletableFuture<Void> releaseResource(String simulationId, int processId, int resourceId, int units) {
+        return submit(simulationId, engine -> {
+            engine.releaseResource(processId, resourceId, units);
+            return null;
+        });
+    }
+    
+    public CompletableFuture<BatchResult> applyBatch(String simulationId, List<Command> commands,
+                                                     boolean stopAtFirstDeadlock) {
+        return submit(simulationId, engine -> engine.applyBatch(commands, stopAtFirstDeadlock));
+    }
+    
+    public Set<String> getSimulationIds() {
+        return Set.copyOf(tenants.keySet());
+    }
+    
+    public int getSimulationCount() {
+        return tenants.size();
+    }
+    
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    /**
+     * Gets the shard a simulation is pinned to.
+     *
+     * @param simulationId The simulation
+     * @return The shard index, or -1 if the simulation doesn't exist
+     */
+    public int getShard(String simulationId) {
+        Tenant tenant = tenants.get(simulationId);
+        return tenant != null ? tenant.shard : -1;
+    }
+    
+    /**
+     * Collects metrics from every simulation. Each engine is read on its own
+     * shard, so the snapshot is consistent per engine without any locking.
+     *
+     * @return A future with the aggregate metrics
+     */
+    public CompletableFuture<HostMetrics> collectMetrics() {
+        List<CompletableFuture<long[]>> perEngine = new ArrayList<>();
+        for (Tenant tenant : tenants.values()) {
+            perEngine.add(CompletableFuture.supplyAsync(() -> {
+                if (tenant.engine == null) {
+                    return new long[3];
+                }
+                PerformanceTracker tracker = tenant.engine.getPerformanceTracker();
+                return new long[] {
+                    tracker.getTotalDeadlocks(), tracker.getResolvedDeadlocks(), tracker.getPreventedDeadlocks()
+                };
+            }, shards[tenant.shard]));
+        }
+        
+        int[] simulationsPerShard = new int[shards.length];
+        for (Tenant tenant : tenants.values()) {
+            simulationsPerShard[tenant.shard]++;
+        }
+        long[] commandsPerShard = new long[shards.length];
+        int[] queueDepths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            commandsPerShard[i] = executedCommands.get(i);
+            queueDepths[i] = shards[i].getQueue().size();
+        }
+        
+        return CompletableFuture.allOf(perEngine.toArray(new CompletableFuture<?>[0])).thenApply(_ -> {
+            long deadlocks = 0;
+            long resolved = 0;
+            long prevented = 0;
+            for (CompletableFuture<long[]> future : perEngine) {
+                long[] counts = future.join();
+                deadlocks += counts[0];
+                resolved += counts[1];
+                prevented += counts[2];
+            }
+            return new HostMetrics(perEngine.size(), simulationsPerShard, commandsPerShard, queueDepths,
+                                   deadlocks, resolved, prevented);
+        });
+    }
+    
+    /**
+     * Shuts down every engine and stops the shard threads once queued
+     * operations have run.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Tenant tenant : tenants.values()) {
+            shards[tenant.shard].execute(() -> {
+                if (tenant.engine != null) {
+                    tenant.engine.shutdown();
+                }
+            });
+        }
+        tenants.clear();
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Engine host is closed");
+        }
+    }
+    
+    private static final class Tenant {
+        final int shard;
+        // Only read and written on the shard thread, after creation is queued there
+        DeadlockEngine engine;
+        
+        Tenant(int shard) {
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package deadlocktoolkit.host;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of metrics aggregated across all simulations in an EngineHost.
+ */
+public final class HostMetrics {
+    private final int simulations;
+    private final int[] simulationsPerShard;
+    private final long[] commandsPerShard;
+    private final int[] queueDepths;
+    private final long totalDeadlocks;
+    private final long resolvedDeadlocks;
+    private final long preventedDeadlocks;
+    
+    HostMetrics(int simulations, int[] simulationsPerShard, long[] commandsPerShard, int[] queueDepths,
+                long totalDeadlocks, long resolvedDeadlocks, long preventedDeadlocks) {
+        this.simulations = simulations;
+        this.simulationsPerShard = simulationsPerShard;
+        this.commandsPerShard = commandsPerShard;
+        this.queueDepths = queueDepths;
+        this.totalDeadlocks = totalDeadlocks;
+        this.resolvedDeadlocks = resolvedDeadlocks;
+        this.preventedDeadlocks = preventedDeadlocks;
+    }
+    
+    public int getSimulations() {
+        return simulations;
+    }
+    
+    public int getSimulationsOnShard(int shard) {
+        return simulationsPerShard[shard];
+    }
+    
+    /**
+     * Gets the number of operations each shard has run since the host started.
+     *
+     * @param shard The shard index
+     * @return The number of operations run on the shard
+     */
+    public long getCommandsOnShard(int shard) {
+        return commandsPerShard[shard];
+    }
+    
+    public long getTotalCommands() {
+        return Arrays.stream(commandsPerShard).sum();
+    }
+    
+    /**
+     * Gets the number of operations waiting to run on a shard when the
+     * snapshot was taken. A shard with a persistently deep queue is hosting
+     * more work than its core can keep up with.
+     *
+     * @param shard The shard index
+     * @return The shard's queue depth
+     */
+    public int getQueueDepth(int shard) {
+        return queueDepths[shard];
+    }
+    
+    public long getTotalDeadlocks() {
+        return totalDeadlocks;
+    }
+    
+    public long getResolvedDeadlocks() {
+        return resolvedDeadlocks;
+    }
+    
+    public long getPreventedDeadlocks() {
+        return preventedDeadlocks;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append("ENGINE HOST\n");
+        report.append("===========\n");
+        report.append("Simulations: ").append(simulations).append(" on ").append(queueDepths.length).append(" shards\n");
+        report.append("Commands: ").append(getTotalCommands()).append("\n");
+        report.append("Deadlocks: ").append(totalDeadlocks).append(" detected, ")
+              .append(resolvedDeadlocks).append(" resolved, ")
+              .append(preventedDeadlocks).append(" prevented\n");
+        for (int i = 0; i < queueDepths.length; i++) {
+            report.append("Shard ").append(i).append(": ").append(simulationsPerShard[i]).append(" simulations, ")
+                  .append(commandsPerShard[i]).append(" commands, queue depth ").append(queueDepths[i]).append("\n");
+        }
+        return report.toString();
+    }
+}
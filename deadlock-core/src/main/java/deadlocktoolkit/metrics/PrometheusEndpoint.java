@@ -0,0 +1,421 @@
+package deadlocktoolkit.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import deadlocktoolkit.core.DeadlockEventDispatcher;
+import deadlocktoolkit.core.LatencyHistogram;
+import deadlocktoolkit.core.PerformanceTracker;
+import deadlocktoolkit.core.ResourceUsage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves a PerformanceTracker's counters, gauges and operation latency
+ * histograms in the Prometheus text exposition format, on an embedded HTTP
+ * server at /metrics.
+ *
+ * The endpoint is optional and nothing starts it by default. Requests are
+ * handled on virtual threads and only read the tracker: counters are plain
+ * fields read without locking, histograms are lock-free, so a scrape sees
+ * values at most slightly stale and the engine thread never waits for one.
+ * Each scrape renders into one byte buffer that is reused from scrape to
+ * scrape, with numbers written digit by digit, so a scrape allocates next to
+ * nothing once the buffer has grown to fit. Concurrent scrapes take turns on
+ * the buffer.
+ */
+public class PrometheusEndpoint implements AutoCloseable {
+    
+    /** The port Prometheus exporters of this kind conventionally use. */
+    public static final int DEFAULT_PORT = 9464;
+    
+    public static final String PATH = "/metrics";
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "deadlock_toolkit_";
+    
+    /** Upper bounds of the latency histogram buckets, in nanoseconds, from 1 us to 5 s. */
+    private static final long[] BUCKET_BOUNDS = {
+        1_000L, 5_000L, 10_000L, 50_000L, 100_000L, 500_000L, 1_000_000L, 5_000_000L, 10_000_000L,
+        50_000_000L, 100_000_000L, 500_000_000L, 1_000_000_000L, 5_000_000_000L
+    };
+    
+    private static final PerformanceTracker.Operation[] OPERATIONS = PerformanceTracker.Operation.values();
+    
+    private final PerformanceTracker tracker;
+    private final ReentrantLock scrapeLock = new ReentrantLock();
+    // Guarded by scrapeLock
+    private final long[] cumulative = new long[BUCKET_BOUNDS.length];
+    private final byte[] digits = new byte[20];
+    private byte[] buffer = new byte[16 * 1024];
+    private int length;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public PrometheusEndpoint(PerformanceTracker tracker) {
+        this.tracker = tracker;
+    }
+    
+    /**
+     * Starts serving on the loopback interface.
+     *
+     * @param port The port, or 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public void start(int port) throws IOException {
+        start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+    
+    /**
+     * Starts serving on the given address.
+     *
+     * @param address The address to bind, e.g. a wildcard address to accept remote scrapes
+     * @throws IOException If the address cannot be bound
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Endpoint already started on port " + getPort());
+        }
+        HttpServer created = HttpServer.create(address, 0);
+        created.createContext(PATH, this::handle);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        created.setExecutor(executor);
+        created.start();
+        server = created;
+    }
+    
+    /**
+     * Gets the port the endpoint is bound to.
+     *
+     * @return The port, or -1 if it is not running
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+    
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+    
+    /**
+     * Stops the server, letting scrapes in progress finish.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.close();
+        server = null;
+        executor = null;
+    }
+    
+    /**
+     * Renders the metrics as they would be served, e.g. for logging.
+     *
+     * @return The exposition text
+     */
+    public String scrape() {
+        scrapeLock.lock();
+        try {
+            render();
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        } finally {
+            scrapeLock.unlock();
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            scrapeLock.lock();
+            try {
+                render();
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(buffer, 0, length);
+            } finally {
+                scrapeLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Writes the current metrics into the buffer. Called with scrapeLock held.
+     */
+    private void render() {
+        length = 0;
+        
+        counter("deadlocks_detected_total", "Deadlocks detected.", tracker.getTotalDeadlocks());
+        counter("deadlocks_resolved_total", "Deadlocks resolved.", tracker.getResolvedDeadlocks());
+        counter("deadlocks_prevented_total", "Deadlocks prevented.", tracker.getPreventedDeadlocks());
+        counter("victimizations_total", "Processes chosen as a deadlock victim.", tracker.getTotalVictimizations());
+        counter("repeat_victimizations_total", "Victimizations of a process already victimized since it last completed.",
+                tracker.getRepeatVictimizations());
+        gauge("starving_processes", "Processes currently in a victimization streak.",
+              tracker.getStarvingProcessCount());
+        gauge("max_starvation_age", "Longest victimization streak so far, in resolutions.",
+              tracker.getMaxStarvationAge());
+        gauge("deadlock_frequency_per_minute", "Recent deadlocks per minute.", tracker.getDeadlockFrequency());
+        gauge("utilization_ratio", "Fraction of all resource units allocated.",
+              tracker.getResourceUtilization());
+        
+        ResourceUsage usage = tracker.getResourceUsage();
+        if (usage != null) {
+            gauge("time_weighted_utilization_ratio",
+                  "Mean fraction of all resource units allocated since the metrics were reset.",
+                  usage.getTimeWeightedUtilization());
+            renderResources(usage);
+        }
+        
+        DeadlockEventDispatcher dispatcher = tracker.getListenerDispatcher();
+        if (dispatcher != null) {
+            counter("listener_events_published_total", "Events published to listeners.",
+                    dispatcher.getPublishedEvents());
+            counter("listener_events_delivered_total", "Events delivered to listeners.",
+                    dispatcher.getDeliveredEvents());
+            counter("listener_events_dropped_total", "Events dropped because the ring was full.",
+                    dispatcher.getDroppedEvents());
+            counter("listener_errors_total", "Exceptions thrown by listeners.", dispatcher.getListenerErrors());
+            gauge("listener_lag", "Events published but not yet delivered.", dispatcher.getLag());
+        }
+        
+        renderLatencies();
+    }
+    
+    private void renderResources(ResourceUsage usage) {
+        int resources = usage.getNumResources();
+        header("resource_capacity_units", "Units of each resource.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_capacity_units", j);
+            longValue(usage.getCapacity(j));
+        }
+        header("resource_allocated_units", "Units of each resource allocated.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_allocated_units", j);
+            longValue(usage.getAllocated(j));
+        }
+        header("resource_utilization_ratio", "Fraction of each resource's units allocated.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_utilization_ratio", j);
+            decimalValue(usage.getUtilization(j));
+        }
+        header("resource_time_weighted_utilization_ratio",
+               "Mean fraction of each resource's units allocated since the metrics were reset.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_time_weighted_utilization_ratio", j);
+            decimalValue(usage.getTimeWeightedUtilization(j));
+        }
+        header("resource_queue_depth", "Requests parked waiting for each resource.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_queue_depth", j);
+            longValue(usage.getQueueDepth(j));
+        }
+        header("resource_peak_queue_depth", "Most requests parked on each resource at once.", "gauge");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_peak_queue_depth", j);
+            longValue(usage.getPeakQueueDepth(j));
+        }
+        header("resource_contended_requests_total", "Requests for each resource that were denied or had to wait.",
+               "counter");
+        for (int j = 0; j < resources; j++) {
+            resourceSample("resource_contended_requests_total", j);
+            longValue(usage.getContention(j));
+        }
+    }
+    
+    private void renderLatencies() {
+        String name = "operation_duration_seconds";
+        header(name, "Duration of engine operations; most are sampled.", "histogram");
+        for (PerformanceTracker.Operation operation : OPERATIONS) {
+            LatencyHistogram histogram = tracker.getLatency(operation);
+            long count = histogram.getCumulativeCounts(BUCKET_BOUNDS, cumulative);
+            long sum = histogram.getSum();
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                bucketSample(name, operation);
+                fixed(BUCKET_BOUNDS[i], 9);
+                ascii("\"} ");
+                longValue(cumulative[i]);
+            }
+            bucketSample(name, operation);
+            ascii("+Inf\"} ");
+            longValue(count);
+            
+            metricName(name);
+            ascii("_sum{operation=\"");
+            operationLabel(operation);
+            ascii("\"} ");
+            fixed(sum, 9);
+            newline();
+            metricName(name);
+            ascii("_count{operation=\"");
+            operationLabel(operation);
+            ascii("\"} ");
+            longValue(count);
+        }
+    }
+    
+    private void counter(String name, String help, long value) {
+        header(name, help, "counter");
+        metricName(name);
+        put((byte) ' ');
+        longValue(value);
+    }
+    
+    private void gauge(String name, String help, long value) {
+        header(name, help, "gauge");
+        metricName(name);
+        put((byte) ' ');
+        longValue(value);
+    }
+    
+    private void gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        metricName(name);
+        put((byte) ' ');
+        decimalValue(value);
+    }
+    
+    private void header(String name, String help, String type) {
+        ascii("# HELP ");
+        metricName(name);
+        put((byte) ' ');
+        ascii(help);
+        ascii("\n# TYPE ");
+        metricName(name);
+        put((byte) ' ');
+        ascii(type);
+        newline();
+    }
+    
+    private void resourceSample(String name, int resourceId) {
+        metricName(name);
+        ascii("{resource=\"");
+        longDigits(resourceId);
+        ascii("\"} ");
+    }
+    
+    private void bucketSample(String name, PerformanceTracker.Operation operation) {
+        metricName(name);
+        ascii("_bucket{operation=\"");
+        operationLabel(operation);
+        ascii("\",le=\"");
+    }
+    
+    private void operationLabel(PerformanceTracker.Operation operation) {
+        String label = operation.name();
+        for (int i = 0; i < label.length(); i++) {
+            put((byte) Character.toLowerCase(label.charAt(i)));
+        }
+    }
+    
+    private void metricName(String name) {
+        ascii(PREFIX);
+        ascii(name);
+    }
+    
+    /**
+     * Writes a sample value and ends the line.
+     */
+    private void longValue(long value) {
+        longDigits(value);
+        newline();
+    }
+    
+    /**
+     * Writes a sample value to six decimal places and ends the line.
+     */
+    private void decimalValue(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            ascii(Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf");
+        } else {
+            fixed(Math.round(value * 1_000_000), 6);
+        }
+        newline();
+    }
+    
+    /**
+     * Writes a fixed-point number, e.g. nanoseconds as seconds with a scale of 9.
+     */
+    private void fixed(long value, int scale) {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        long unit = 1;
+        for (int i = 0; i < scale; i++) {
+            unit *= 10;
+        }
+        longDigits(value / unit);
+        long fraction = value % unit;
+        if (fraction == 0) {
+            return;
+        }
+        put((byte) '.');
+        for (long place = unit / 10; fraction != 0; place /= 10) {
+            put((byte) ('0' + fraction / place));
+            fraction %= place;
+        }
+    }
+    
+    private void longDigits(long value) {
+        if (value < 0) {
+            put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                ascii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(count);
+        while (count > 0) {
+            buffer[length++] = digits[--count];
+        }
+    }
+    
+    private void ascii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[length++] = (byte) text.charAt(i);
+        }
+    }
+    
+    private void newline() {
+        put((byte) '\n');
+    }
+    
+    private void put(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
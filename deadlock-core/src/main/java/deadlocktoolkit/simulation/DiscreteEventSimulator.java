@@ -0,0 +1,509 @@
+package deadlocktoolkit.simulation;
+
+import deadlocktoolkit.core.DeadlockEngine;
+import deadlocktoolkit.core.LatencyHistogram;
+import deadlocktoolkit.core.PerformanceTracker;
+import deadlocktoolkit.workload.Distribution;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Drives a DeadlockEngine from a discrete-event simulation running on a virtual clock.
+ *
+ * Process arrivals, resource requests, hold periods, releases and periodic
+ * deadlock detection are all scheduled events. Each process runs a loop of
+ * tasks: it thinks, acquires a task's resources one at a time (or all at once
+ * in all-or-nothing mode), holds them, and releases them together. A task
+ * whose request is denied, or that loses resources it already held, gives up
+ * the rest and starts over. Every process draws its choices from its own
+ * random stream split from the seed, so a given seed produces the same
+ * workload whatever the engine is configured to do with it. The kernel jumps straight from
+ * one event to the next instead of waiting, so an hour of simulated activity
+ * runs as fast as the engine can process it. While the simulation runs, the
+ * engine's PerformanceTracker and nanosecond clock are switched to the virtual
+ * clock, so resolution times, deadlock frequency, request timeouts and leases
+ * all run in virtual time.
+ */
+public class DiscreteEventSimulator {
+    static final int ARRIVAL = 0;
+    static final int REQUEST = 1;
+    static final int RELEASE = 2;
+    static final int DETECT = 3;
+    static final int ABANDON = 4;
+    
+    private final DeadlockEngine engine;
+    private final VirtualClock clock = new VirtualClock();
+    private final EventQueue events = new EventQueue();
+    
+    private int numProcesses = 100;
+    private int numResources = 8;
+    private int unitsPerResource = 20;
+    private int maxClaimPerResource = 3;
+    private int resourcesPerTask = 1;
+    private boolean allOrNothing;
+    private Distribution arrivalGap = Distribution.exponential(TimeUnit.MILLISECONDS.toNanos(10));
+    private Distribution thinkTime = Distribution.exponential(TimeUnit.MILLISECONDS.toNanos(50));
+    private Distribution holdTime = Distribution.exponential(TimeUnit.MILLISECONDS.toNanos(20));
+    private long detectionIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    private boolean resolveDetectedDeadlocks = true;
+    private long seed = 42;
+    
+    // Per-run state
+    private SplittableRandom random;
+    private SplittableRandom[] streams;
+    private int[] shuffled;
+    private int[][] taskResources;
+    private int[][] taskUnits;
+    private int[] taskSize;
+    private int[] taskStep;
+    private long[] taskStartNanos;
+    private Report report;
+    
+    public DiscreteEventSimulator(DeadlockEngine engine) {
+        this.engine = engine;
+    }
+    
+    public void setNumProcesses(int numProcesses) {
+        this.numProcesses = numProcesses;
+    }
+    
+    public void setNumResources(int numResources) {
+        this.numResources = numResources;
+    }
+    
+    public void setUnitsPerResource(int unitsPerResource) {
+        this.unitsPerResource = unitsPerResource;
+    }
+    
+    public void setMaxClaimPerResource(int maxClaimPerResource) {
+        this.maxClaimPerResource = maxClaimPerResource;
+    }
+    
+    /**
+     * Sets how many distinct resources each task acquires before it starts
+     * holding. With more than one, processes hold some resources while
+     * waiting for others, so deadlock becomes possible.
+     *
+     * @param resourcesPerTask The number of resources per task; capped at the resource count
+     */
+    public void setResourcesPerTask(int resourcesPerTask) {
+        this.resourcesPerTask = resourcesPerTask;
+    }
+    
+    /**
+     * Sets whether a task requests all of its resources with one
+     * all-or-nothing request instead of one at a time.
+     *
+     * @param allOrNothing True to use DeadlockEngine.requestAll
+     */
+    public void setAllOrNothing(boolean allOrNothing) {
+        this.allOrNothing = allOrNothing;
+    }
+    
+    public void setArrivalGap(Distribution arrivalGap) {
+        this.arrivalGap = arrivalGap;
+    }
+    
+    public void setThinkTime(Distribution thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+    
+    public void setHoldTime(Distribution holdTime) {
+        this.holdTime = holdTime;
+    }
+    
+    /**
+     * Sets how often a detection tick runs. Zero disables periodic detection.
+     *
+     * @param detectionIntervalNanos The interval in virtual nanoseconds
+     */
+    public void setDetectionInterval(long detectionIntervalNanos) {
+        this.detectionIntervalNanos = detectionIntervalNanos;
+    }
+    
+    public void setResolveDetectedDeadlocks(boolean resolveDetectedDeadlocks) {
+        this.resolveDetectedDeadlocks = resolveDetectedDeadlocks;
+    }
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    public VirtualClock getClock() {
+        return clock;
+    }
+    
+    /**
+     * Initializes the engine and simulates the given span of virtual time.
+     *
+     * @param virtualDurationNanos How much virtual time to simulate
+     * @return The results of the run
+     */
+    public Report run(long virtualDurationNanos) {
+        if (numProcesses < 1 || numResources < 1 || maxClaimPerResource < 1 || resourcesPerTask < 1) {
+            throw new IllegalArgumentException("Processes, resources, max claim and task size must be positive");
+        }
+        
+        random = new SplittableRandom(seed);
+        
+        PerformanceTracker tracker = engine.getPerformanceTracker();
+        Clock previousClock = tracker.getClock();
+        LongSupplier previousNanoClock = engine.getNanoClock();
+        tracker.setClock(clock);
+        engine.setNanoClock(clock::nanoTime);
+        long startNanos = clock.nanoTime();
+        long endNanos = startNanos + virtualDurationNanos;
+        
+        int[] available = new int[numResources];
+        Arrays.fill(available, unitsPerResource);
+        engine.setHistoryRecording(false);
+        engine.initialize(numProcesses, numResources, available);
+        
+        // Reset after initialize(), which abandons requests left from a previous run
+        events.clear();
+        report = new Report();
+        int taskCapacity = Math.min(resourcesPerTask, numResources);
+        streams = new SplittableRandom[numProcesses];
+        shuffled = new int[numResources];
+        taskResources = new int[numProcesses][taskCapacity];
+        taskUnits = new int[numProcesses][taskCapacity];
+        taskSize = new int[numProcesses];
+        taskStep = new int[numProcesses];
+        taskStartNanos = new long[numProcesses];
+        for (int i = 0; i < numProcesses; i++) {
+            int[] maxDemand = new int[numResources];
+            for (int j = 0; j < numResources; j++) {
+                maxDemand[j] = 1 + random.nextInt(maxClaimPerResource);
+            }
+            engine.getBankersAlgorithm().setMaxDemand(i, maxDemand);
+            streams[i] = random.split();
+        }
+        
+        long arrival = startNanos;
+        for (int i = 0; i < numProcesses; i++) {
+            arrival += arrivalGap.sampleNanos(random);
+            events.schedule(arrival, ARRIVAL, i, 0, 0);
+        }
+        if (detectionIntervalNanos > 0) {
+            events.schedule(startNanos + detectionIntervalNanos, DETECT, 0, 0, 0);
+        }
+        
+        long wallStart = System.nanoTime();
+        try {
+            while (events.peekTime() <= endNanos && events.poll()) {
+                clock.advanceTo(events.getTime());
+                engine.expireTimers();
+                report.events++;
+                dispatch(events.getType(), events.getArg0(), events.getArg1(), events.getArg2());
+            }
+            clock.advanceTo(Math.max(clock.nanoTime(), endNanos));
+        } finally {
+            tracker.setClock(previousClock);
+            engine.setNanoClock(previousNanoClock);
+        }
+        
+        report.wallNanos = System.nanoTime() - wallStart;
+        report.virtualNanos = clock.nanoTime() - startNanos;
+        report.deadlocks = tracker.getTotalDeadlocks();
+        report.resolved = tracker.getResolvedDeadlocks();
+        report.aborts = engine.getTotalAborts();
+        report.timedOut = engine.getTimedOutRequests();
+        tracker.updateDeadlockFrequency(report.deadlocks, report.virtualNanos / 60e9);
+        return report;
+    }
+    
+    private void dispatch(int type, int processId, int resourceId, int units) {
+        switch (type) {
+            case ARRIVAL:
+                scheduleRequest(processId);
+                break;
+            case REQUEST:
+                request(processId);
+                break;
+            case RELEASE:
+                // Terminated processes leave the simulation; their units were reclaimed
+                if (engine.getBankersAlgorithm().isProcessActive(processId)) {
+                    releaseAll(processId);
+                    report.completedTasks++;
+                    scheduleRequest(processId);
+                }
+                break;
+            case ABANDON:
+                if (engine.getBankersAlgorithm().isProcessActive(processId)) {
+                    releaseAll(processId);
+                    report.restarts++;
+                    scheduleRequest(processId);
+                }
+                break;
+            case DETECT:
+                if (engine.detectDeadlock() && resolveDetectedDeadlocks) {
+                    engine.resolveDeadlock();
+                }
+                events.schedule(clock.nanoTime() + detectionIntervalNanos, DETECT, 0, 0, 0);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type " + type);
+        }
+    }
+    
+    private void scheduleRequest(int processId) {
+        taskStep[processId] = 0;
+        events.schedule(clock.nanoTime() + thinkTime.sampleNanos(streams[processId]), REQUEST, processId, 0, 0);
+    }
+    
+    private void request(int processId) {
+        // Terminated processes leave the simulation
+        if (!engine.getBankersAlgorithm().isProcessActive(processId)) {
+            return;
+        }
+        
+        int step = taskStep[processId];
+        if (step == 0) {
+            if (!startTask(processId)) {
+                scheduleRequest(processId);
+                return;
+            }
+        } else if (!holdsTask(processId, step)) {
+            // Aborted or preempted since the last step
+            events.schedule(clock.nanoTime(), ABANDON, processId, 0, 0);
+            return;
+        }
+        
+        report.requests++;
+        CompletableFuture<Boolean> grant;
+        if (allOrNothing) {
+            int[] vector = new int[numResources];
+            for (int i = 0; i < taskSize[processId]; i++) {
+                vector[taskResources[processId][i]] = taskUnits[processId][i];
+            }
+            grant = engine.requestAll(processId, vector);
+        } else {
+            grant = engine.requestResourceAsync(processId, taskResources[processId][step], taskUnits[processId][step]);
+        }
+        if (grant.isDone()) {
+            onGrant(processId, grant.join());
+        } else {
+            report.parked++;
+            // Completes inside a later engine call, still on this thread and at the then-current virtual time
+            grant.thenAccept(granted -> onGrant(processId, granted));
+        }
+    }
+    
+    /**
+     * Picks the resources of a new task, in random order, and the units of
+     * each. Resources the process has no remaining claim on are skipped.
+     *
+     * @return False if the process has nothing left to claim
+     */
+    private boolean startTask(int processId) {
+        SplittableRandom stream = streams[processId];
+        int[][] need = engine.getBankersAlgorithm().getNeedMatrix();
+        for (int j = 0; j < numResources; j++) {
+            shuffled[j] = j;
+        }
+        int size = 0;
+        for (int k = 0; k < numResources && size < taskResources[processId].length; k++) {
+            int pick = k + stream.nextInt(numResources - k);
+            int resourceId = shuffled[pick];
+            shuffled[pick] = shuffled[k];
+            shuffled[k] = resourceId;
+            if (need[processId][resourceId] > 0) {
+                taskResources[processId][size] = resourceId;
+                taskUnits[processId][size++] = 1 + stream.nextInt(need[processId][resourceId]);
+            }
+        }
+        taskSize[processId] = size;
+        taskStartNanos[processId] = clock.nanoTime();
+        return size > 0;
+    }
+    
+    private boolean holdsTask(int processId, int steps) {
+        int[] held = engine.getBankersAlgorithm().getAllocationMatrix()[processId];
+        for (int i = 0; i < steps; i++) {
+            if (held[taskResources[processId][i]] < taskUnits[processId][i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Releases everything the process holds. Processes only hold the
+     * resources of their current task, plus any units a preemption gave back
+     * after the task had moved on.
+     */
+    private void releaseAll(int processId) {
+        int[] held = engine.getBankersAlgorithm().getAllocationMatrix()[processId];
+        for (int j = 0; j < numResources; j++) {
+            if (held[j] > 0) {
+                engine.releaseResource(processId, j, held[j]);
+                report.releases++;
+            }
+        }
+    }
+    
+    private void onGrant(int processId, boolean granted) {
+        // Engine calls are left to events, since this may run inside one
+        if (!granted) {
+            report.denied++;
+            events.schedule(clock.nanoTime(), ABANDON, processId, 0, 0);
+            return;
+        }
+        report.grants++;
+        if (!allOrNothing && ++taskStep[processId] < taskSize[processId]) {
+            events.schedule(clock.nanoTime(), REQUEST, processId, 0, 0);
+            return;
+        }
+        taskStep[processId] = taskSize[processId];
+        report.waitTime.record(clock.nanoTime() - taskStartNanos[processId]);
+        events.schedule(clock.nanoTime() + holdTime.sampleNanos(streams[processId]), RELEASE, processId, 0, 0);
+    }
+    
+    /**
+     * Results of a simulation run. Times are virtual unless stated otherwise.
+     */
+    public static class Report {
+        private long events;
+        private long requests;
+        private long grants;
+        private long parked;
+        private long denied;
+        private long releases;
+        private long completedTasks;
+        private long restarts;
+        private long aborts;
+        private long timedOut;
+        private int deadlocks;
+        private int resolved;
+        private long virtualNanos;
+        private long wallNanos;
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        
+        public long getEvents() {
+            return events;
+        }
+        
+        public long getRequests() {
+            return requests;
+        }
+        
+        public long getGrants() {
+            return grants;
+        }
+        
+        public long getParkedRequests() {
+            return parked;
+        }
+        
+        public long getDeniedRequests() {
+            return denied;
+        }
+        
+        public long getReleases() {
+            return releases;
+        }
+        
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+        
+        /**
+         * Gets the number of tasks that gave up what they held and started
+         * over, after a denied request or losing units to an abort or preemption.
+         */
+        public long getRestarts() {
+            return restarts;
+        }
+        
+        /**
+         * Gets the number of processes aborted by wait-die or wound-wait.
+         */
+        public long getAborts() {
+            return aborts;
+        }
+        
+        public long getTimedOutRequests() {
+            return timedOut;
+        }
+        
+        /**
+         * Gets the rate at which tasks complete.
+         *
+         * @return Completed tasks per virtual second
+         */
+        public double getThroughput() {
+            return virtualNanos > 0 ? completedTasks / getVirtualSeconds() : 0.0;
+        }
+        
+        public int getDeadlocks() {
+            return deadlocks;
+        }
+        
+        public int getResolvedDeadlocks() {
+            return resolved;
+        }
+        
+        public double getVirtualSeconds() {
+            return virtualNanos / 1e9;
+        }
+        
+        /**
+         * Gets the real time the run took.
+         *
+         * @return Wall-clock seconds
+         */
+        public double getWallSeconds() {
+            return wallNanos / 1e9;
+        }
+        
+        /**
+         * Gets the kernel's processing rate.
+         *
+         * @return Events processed per wall-clock second
+         */
+        public double getEventsPerSecond() {
+            return wallNanos > 0 ? events / getWallSeconds() : 0.0;
+        }
+        
+        public double getDeadlocksPerVirtualMinute() {
+            return virtualNanos > 0 ? deadlocks / (virtualNanos / 60e9) : 0.0;
+        }
+        
+        /**
+         * Gets the distribution of virtual time between the start of a task and
+         * the grant of its last resource.
+         *
+         * @return The wait time histogram in virtual nanoseconds
+         */
+        public LatencyHistogram getWaitTime() {
+            return waitTime;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append("SIMULATION REPORT\n");
+            report.append("=================\n");
+            report.append("Virtual Time: ").append(String.format("%.2f", getVirtualSeconds())).append(" s\n");
+            report.append("Wall Time: ").append(String.format("%.3f", getWallSeconds())).append(" s\n");
+            report.append("Events: ").append(events)
+                  .append(String.format(" (%.0f per second)", getEventsPerSecond())).append("\n");
+            report.append("Requests: ").append(requests).append(" (").append(grants).append(" granted, ")
+                  .append(parked).append(" queued, ").append(denied).append(" denied)\n");
+            report.append("Releases: ").append(releases).append("\n");
+            report.append("Tasks: ").append(completedTasks).append(" completed")
+                  .append(String.format(" (%.1f per virtual second), ", getThroughput()))
+                  .append(restarts).append(" restarted\n");
+            report.append("Aborts: ").append(aborts).append(", Timeouts: ").append(timedOut).append("\n");
+            report.append("Deadlocks: ").append(deadlocks).append(" (").append(resolved).append(" resolved, ")
+                  .append(String.format("%.2f", getDeadlocksPerVirtualMinute())).append(" per virtual minute)\n");
+            report.append(String.format("Wait Time: mean=%.2f ms, p99=%.2f ms, max=%.2f ms%n",
+                waitTime.getMean() / 1e6, waitTime.getPercentile(99) / 1e6, waitTime.getMax() / 1e6));
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package deadlocktoolkit.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of scheduled events, keyed by virtual time.
+ *
+ * Events are stored in parallel primitive arrays rather than as objects, so
+ * scheduling and dispatching millions of events allocates nothing once the
+ * arrays have grown. Events with the same time come out in the order they
+ * were scheduled. After {@link #poll()} the removed event's fields are
+ * available through the getters.
+ */
+public class EventQueue {
+    private long[] times;
+    private long[] sequences;
+    private int[] types;
+    private int[] args0;
+    private int[] args1;
+    private int[] args2;
+    private int size;
+    private long nextSequence;
+    
+    // The event most recently removed by poll()
+    private long time;
+    private int type;
+    private int arg0;
+    private int arg1;
+    private int arg2;
+    
+    public EventQueue() {
+        this(1024);
+    }
+    
+    public EventQueue(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        times = new long[capacity];
+        sequences = new long[capacity];
+        types = new int[capacity];
+        args0 = new int[capacity];
+        args1 = new int[capacity];
+        args2 = new int[capacity];
+    }
+    
+    /**
+     * Schedules an event.
+     *
+     * @param time The virtual time at which the event fires
+     * @param type The event type
+     * @param arg0 First event argument
+     * @param arg1 Second event argument
+     * @param arg2 Third event argument
+     */
+    public void schedule(long time, int type, int arg0, int arg1, int arg2) {
+        if (size == times.length) {
+            grow();
+        }
+        int i = size++;
+        times[i] = time;
+        sequences[i] = nextSequence++;
+        types[i] = type;
+        args0[i] = arg0;
+        args1[i] = arg1;
+        args2[i] = arg2;
+        siftUp(i);
+    }
+    
+    /**
+     * Removes the earliest event.
+     *
+     * @return false if the queue was empty
+     */
+    public boolean poll() {
+        if (size == 0) {
+            return false;
+        }
+        time = times[0];
+        type = types[0];
+        arg0 = args0[0];
+        arg1 = args1[0];
+        arg2 = args2[0];
+        
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return true;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long peekTime() {
+        return size > 0 ? times[0] : Long.MAX_VALUE;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public long getTime() {
+        return time;
+    }
+    
+    public int getType() {
+        return type;
+    }
+    
+    public int getArg0() {
+        return arg0;
+    }
+    
+    public int getArg1() {
+        return arg1;
+    }
+    
+    public int getArg2() {
+        return arg2;
+    }
+    
+    private boolean before(int i, int j) {
+        return times[i] < times[j] || (times[i] == times[j] && sequences[i] < sequences[j]);
+    }
+    
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+    
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && before(right, left)) {
+                smallest = right;
+            }
+            if (!before(smallest, i)) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+    
+    private void move(int from, int to) {
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+        types[to] = types[from];
+        args0[to] = args0[from];
+        args1[to] = args1[from];
+        args2[to] = args2[from];
+    }
+    
+    private void swap(int i, int j) {
+        long swappedTime = times[i];
+        times[i] = times[j];
+        times[j] = swappedTime;
+        
+        long swappedSequence = sequences[i];
+        sequences[i] = sequences[j];
+        sequences[j] = swappedSequence;
+        
+        swap(types, i, j);
+        swap(args0, i, j);
+        swap(args1, i, j);
+        swap(args2, i, j);
+    }
+    
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+    
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        types = Arrays.copyOf(types, capacity);
+        args0 = Arrays.copyOf(args0, capacity);
+        args1 = Arrays.copyOf(args1, capacity);
+        args2 = Arrays.copyOf(args2, capacity);
+    }
+}
@@ -0,0 +1,64 @@
+package deadlocktoolkit.simulation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Simulated time, advanced explicitly by the event kernel instead of by the wall clock.
+ *
+ * It is also a {@link Clock}, so components that timestamp events (such as
+ * PerformanceTracker) report virtual time when given this clock.
+ */
+public class VirtualClock extends Clock {
+    private final Instant origin;
+    private final ZoneId zone;
+    private long nowNanos;
+    
+    public VirtualClock() {
+        this(Instant.EPOCH, ZoneId.systemDefault());
+    }
+    
+    public VirtualClock(Instant origin, ZoneId zone) {
+        this.origin = origin;
+        this.zone = zone;
+    }
+    
+    /**
+     * Gets the virtual time elapsed since the simulation started.
+     *
+     * @return The current virtual time in nanoseconds
+     */
+    public long nanoTime() {
+        return nowNanos;
+    }
+    
+    /**
+     * Moves the clock forward. Time never runs backwards.
+     *
+     * @param nanos The new virtual time in nanoseconds
+     */
+    public void advanceTo(long nanos) {
+        if (nanos < nowNanos) {
+            throw new IllegalArgumentException("Virtual time cannot move backwards");
+        }
+        nowNanos = nanos;
+    }
+    
+    @Override
+    public Instant instant() {
+        return origin.plusNanos(nowNanos);
+    }
+    
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+    
+    @Override
+    public Clock withZone(ZoneId zone) {
+        VirtualClock clock = new VirtualClock(origin, zone);
+        clock.nowNanos = nowNanos;
+        return clock;
+    }
+}
@@ -0,0 +1,41 @@
+package deadlocktoolkit.workload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A distribution of durations in nanoseconds, used for think and hold times.
+ */
+public interface Distribution {
+    
+    /**
+     * Draws a duration.
+     *
+     * @param random The random source to draw from
+     * @return A non-negative duration in nanoseconds
+     */
+    long sampleNanos(RandomGenerator random);
+    
+    /**
+     * Always returns the same duration.
+     */
+    static Distribution constant(long nanos) {
+        return random -> nanos;
+    }
+    
+    /**
+     * Uniformly distributed between min and max, inclusive.
+     */
+    static Distribution uniform(long minNanos, long maxNanos) {
+        if (minNanos > maxNanos) {
+            throw new IllegalArgumentException("min must not exceed max");
+        }
+        return random -> minNanos == maxNanos ? minNanos : random.nextLong(minNanos, maxNanos + 1);
+    }
+    
+    /**
+     * Exponentially distributed with the given mean, as for Poisson arrivals.
+     */
+    static Distribution exponential(long meanNanos) {
+        return random -> (long) (random.nextExponential() * meanNanos);
+    }
+}
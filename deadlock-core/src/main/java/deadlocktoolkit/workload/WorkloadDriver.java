@@ -0,0 +1,364 @@
+package deadlocktoolkit.workload;
+
+import deadlocktoolkit.core.DeadlockEngine;
+import deadlocktoolkit.core.LatencyHistogram;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Load-tests a DeadlockEngine with many concurrently running simulated processes.
+ *
+ * Every simulated process runs on its own virtual thread and loops through
+ * cycles of think, acquire, hold, release against the engine. A cycle
+ * acquires several distinct resources one at a time, in random order, and
+ * keeps what it has while it waits for the next one, so processes really do
+ * hold and wait and can deadlock when Banker's avoidance is off. Everything
+ * is released at the end of the cycle. A deadlock found while a request is
+ * parked is resolved on the spot with the engine's recovery strategy;
+ * processes it terminates stop running.
+ *
+ * DeadlockEngine is not thread-safe, so all engine calls go through one lock;
+ * the time spent waiting for it is part of the measured latency, which is
+ * exactly the contention a real multi-threaded client would see.
+ */
+public class WorkloadDriver {
+    private final DeadlockEngine engine;
+    private int numProcesses = 10_000;
+    private int numResources = 16;
+    private int unitsPerResource = 1_000;
+    private int maxClaimPerResource = 4;
+    private int acquisitionsPerCycle = 2;
+    private Distribution thinkTime = Distribution.exponential(TimeUnit.MILLISECONDS.toNanos(5));
+    private Distribution holdTime = Distribution.exponential(TimeUnit.MILLISECONDS.toNanos(2));
+    
+    private final ReentrantLock engineLock = new ReentrantLock();
+    
+    public WorkloadDriver(DeadlockEngine engine) {
+        this.engine = engine;
+    }
+    
+    public void setNumProcesses(int numProcesses) {
+        this.numProcesses = numProcesses;
+    }
+    
+    public void setNumResources(int numResources) {
+        this.numResources = numResources;
+    }
+    
+    public void setUnitsPerResource(int unitsPerResource) {
+        this.unitsPerResource = unitsPerResource;
+    }
+    
+    public void setMaxClaimPerResource(int maxClaimPerResource) {
+        this.maxClaimPerResource = maxClaimPerResource;
+    }
+    
+    /**
+     * Sets how many distinct resources each cycle acquires, one after the
+     * other, before releasing them all. With 1 a process never holds one
+     * resource while waiting for another, so no deadlock can form.
+     */
+    public void setAcquisitionsPerCycle(int acquisitionsPerCycle) {
+        this.acquisitionsPerCycle = acquisitionsPerCycle;
+    }
+    
+    public void setThinkTime(Distribution thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+    
+    public void setHoldTime(Distribution holdTime) {
+        this.holdTime = holdTime;
+    }
+    
+    /**
+     * Initializes the engine for the configured system size and runs the
+     * workload for the given duration.
+     *
+     * @param duration How long the simulated processes keep running
+     * @return The aggregate results of the run
+     */
+    public Report run(Duration duration) throws InterruptedException {
+        if (numProcesses < 1 || numResources < 1 || maxClaimPerResource < 1) {
+            throw new IllegalArgumentException("Processes, resources and max claim must be positive");
+        }
+        if (acquisitionsPerCycle < 1 || acquisitionsPerCycle > numResources) {
+            throw new IllegalArgumentException("Acquisitions per cycle must be between 1 and the number of resources");
+        }
+        
+        int[] available = new int[numResources];
+        Arrays.fill(available, unitsPerResource);
+        engine.setHistoryRecording(false);
+        engine.initialize(numProcesses, numResources, available);
+        
+        ThreadLocalRandom setupRandom = ThreadLocalRandom.current();
+        for (int i = 0; i < numProcesses; i++) {
+            int[] maxDemand = new int[numResources];
+            for (int j = 0; j < numResources; j++) {
+                maxDemand[j] = 1 + setupRandom.nextInt(maxClaimPerResource);
+            }
+            engine.getBankersAlgorithm().setMaxDemand(i, maxDemand);
+        }
+        
+        Report report = new Report(numProcesses);
+        int deadlocksBefore = engine.getPerformanceTracker().getTotalDeadlocks();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < numProcesses; i++) {
+                int processId = i;
+                executor.submit(() -> runProcess(processId, deadline, report));
+            }
+        }
+        
+        report.elapsedNanos = System.nanoTime() - start;
+        report.deadlocks = engine.getPerformanceTracker().getTotalDeadlocks() - deadlocksBefore;
+        return report;
+    }
+    
+    private void runProcess(int processId, long deadline, Report report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] acquired = new int[acquisitionsPerCycle];
+        
+        while (System.nanoTime() < deadline) {
+            if (!pause(thinkTime.sampleNanos(random))) {
+                return;
+            }
+            
+            int held = 0;
+            while (held < acquisitionsPerCycle) {
+                int resourceId = pickResource(random, acquired, held);
+                int units = 1 + random.nextInt(maxClaimPerResource);
+                
+                // Unsafe requests are parked by the engine rather than denied,
+                // so the process blocks here, still holding what it has
+                long requestStart = System.nanoTime();
+                CompletableFuture<Boolean> request;
+                engineLock.lock();
+                try {
+                    int need = engine.getBankersAlgorithm().getNeedMatrix()[processId][resourceId];
+                    units = Math.max(1, Math.min(units, need));
+                    int deadlocksBefore = engine.getPerformanceTracker().getTotalDeadlocks();
+                    request = engine.requestResourceAsync(processId, resourceId, units);
+                    resolveIfDetected(deadlocksBefore);
+                } finally {
+                    engineLock.unlock();
+                }
+                if (!awaitGrant(request, deadline)) {
+                    report.denied.increment();
+                    break;
+                }
+                report.requestLatency.record(System.nanoTime() - requestStart);
+                report.granted.increment();
+                acquired[held++] = resourceId;
+                
+                if (held < acquisitionsPerCycle && !pause(holdTime.sampleNanos(random))) {
+                    break;
+                }
+            }
+            
+            if (held == acquisitionsPerCycle) {
+                pause(holdTime.sampleNanos(random));
+            }
+            
+            // Release whatever the cycle still holds; recovery may have taken some of it
+            long releaseStart = System.nanoTime();
+            int releases = 0;
+            boolean active;
+            engineLock.lock();
+            try {
+                // Releasing admits parked waiters, which can close a cycle too
+                int deadlocksBefore = engine.getPerformanceTracker().getTotalDeadlocks();
+                for (int i = 0; i < held; i++) {
+                    int units = engine.getBankersAlgorithm().getAllocationMatrix()[processId][acquired[i]];
+                    if (units > 0) {
+                        engine.releaseResource(processId, acquired[i], units);
+                        releases++;
+                    }
+                }
+                resolveIfDetected(deadlocksBefore);
+                active = engine.getBankersAlgorithm().isProcessActive(processId);
+            } finally {
+                engineLock.unlock();
+            }
+            if (releases > 0) {
+                report.releaseLatency.record(System.nanoTime() - releaseStart);
+                report.released.add(releases);
+            }
+            if (!active) {
+                report.terminated.increment();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Resolves the deadlocks the engine detected since the count was taken.
+     * Call it with the engine lock held.
+     */
+    private void resolveIfDetected(int deadlocksBefore) {
+        if (engine.getPerformanceTracker().getTotalDeadlocks() > deadlocksBefore) {
+            engine.resolveDeadlock();
+        }
+    }
+    
+    /**
+     * Picks a resource the current cycle does not hold yet.
+     */
+    private int pickResource(ThreadLocalRandom random, int[] acquired, int held) {
+        while (true) {
+            int resourceId = random.nextInt(numResources);
+            boolean taken = false;
+            for (int i = 0; i < held; i++) {
+                if (acquired[i] == resourceId) {
+                    taken = true;
+                    break;
+                }
+            }
+            if (!taken) {
+                return resourceId;
+            }
+        }
+    }
+    
+    private static boolean awaitGrant(CompletableFuture<Boolean> request, long deadline) {
+        try {
+            return request.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Still parked when the run ended; the engine drops cancelled waiters before it next detects
+            request.cancel(false);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.cancel(false);
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+    
+    private static boolean pause(long nanos) {
+        try {
+            if (nanos > 0) {
+                Thread.sleep(Duration.ofNanos(nanos));
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Aggregate results of a workload run.
+     */
+    public static class Report {
+        private final int processes;
+        private final LongAdder granted = new LongAdder();
+        private final LongAdder denied = new LongAdder();
+        private final LongAdder released = new LongAdder();
+        private final LongAdder terminated = new LongAdder();
+        private final LatencyHistogram requestLatency = new LatencyHistogram();
+        private final LatencyHistogram releaseLatency = new LatencyHistogram();
+        private long elapsedNanos;
+        private int deadlocks;
+        
+        Report(int processes) {
+            this.processes = processes;
+        }
+        
+        public long getGrantedRequests() {
+            return granted.sum();
+        }
+        
+        public long getDeniedRequests() {
+            return denied.sum();
+        }
+        
+        public long getReleases() {
+            return released.sum();
+        }
+        
+        /**
+         * Gets the number of processes terminated by deadlock recovery, which
+         * stopped running for the rest of the run.
+         */
+        public long getTerminatedProcesses() {
+            return terminated.sum();
+        }
+        
+        public long getTotalOperations() {
+            return granted.sum() + denied.sum() + released.sum();
+        }
+        
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+        
+        /**
+         * Gets the number of engine operations (requests and releases) per second.
+         *
+         * @return The aggregate throughput
+         */
+        public double getThroughput() {
+            return elapsedNanos > 0 ? getTotalOperations() / getElapsedSeconds() : 0.0;
+        }
+        
+        public int getDeadlocks() {
+            return deadlocks;
+        }
+        
+        /**
+         * Gets the number of deadlocks per thousand requests.
+         *
+         * @return The deadlock rate
+         */
+        public double getDeadlockRate() {
+            long requests = granted.sum() + denied.sum();
+            return requests > 0 ? deadlocks * 1000.0 / requests : 0.0;
+        }
+        
+        public LatencyHistogram getRequestLatency() {
+            return requestLatency;
+        }
+        
+        public LatencyHistogram getReleaseLatency() {
+            return releaseLatency;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append("WORKLOAD REPORT\n");
+            report.append("===============\n");
+            report.append("Processes: ").append(processes).append("\n");
+            report.append("Elapsed: ").append(String.format("%.2f", getElapsedSeconds())).append(" s\n");
+            report.append("Throughput: ").append(String.format("%.0f", getThroughput())).append(" ops/s\n");
+            report.append("Requests: ").append(getGrantedRequests()).append(" granted, ")
+                  .append(getDeniedRequests()).append(" denied or still waiting at the end\n");
+            report.append("Releases: ").append(getReleases()).append("\n");
+            report.append("Terminated by recovery: ").append(getTerminatedProcesses()).append("\n");
+            report.append("Deadlocks: ").append(deadlocks)
+                  .append(String.format(" (%.3f per 1000 requests)", getDeadlockRate())).append("\n");
+            appendLatency(report, "Request latency", requestLatency);
+            appendLatency(report, "Release latency", releaseLatency);
+            return report.toString();
+        }
+        
+        private static void appendLatency(StringBuilder report, String label, LatencyHistogram histogram) {
+            report.append(label).append(String.format(": p50=%.1f us, p99=%.1f us, max=%.1f us%n",
+                histogram.getPercentile(50) / 1e3,
+                histogram.getPercentile(99) / 1e3,
+                histogram.getMax() / 1e3));
+        }
+    }
+}
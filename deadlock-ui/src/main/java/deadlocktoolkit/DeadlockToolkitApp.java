@@ -4,6 +4,7 @@ import deadlocktoolkit.core.*;
 import deadlocktoolkit.visualization.*;
 import deadlocktoolkit.ui.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
@@ -16,6 +17,7 @@ public class DeadlockToolkitApp extends Application {
     public void start(Stage primaryStage) {
         // Initialize the core engine
         DeadlockEngine engine = new DeadlockEngine();
+        engine.setMonitoringExecutor(Platform::runLater);
         
         // Initialize visualization system
         VisualizationSystem visualSystem = new VisualizationSystem(engine);
@@ -30,6 +32,7 @@ public class DeadlockToolkitApp extends Application {
         // Configure and show the primary stage
         primaryStage.setTitle("Deadlock Detection and Prevention Toolkit");
         primaryStage.setScene(scene);
+        primaryStage.setOnHidden(_ -> controller.shutdown());
         primaryStage.show();
     }
     
@@ -0,0 +1,35 @@
+package deadlocktoolkit.ui;
+
+import deadlocktoolkit.core.StateProperty;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+
+/**
+ * Adapts the engine's toolkit-free {@link StateProperty} values to JavaFX
+ * properties that can be bound in the UI. Updates are marshalled onto the
+ * JavaFX application thread.
+ */
+public final class FxProperties {
+    
+    private FxProperties() {
+    }
+    
+    /**
+     * Creates a read-only JavaFX property that mirrors the given state property.
+     *
+     * @param source The core property to mirror
+     * @return A JavaFX property updated on the application thread
+     */
+    public static <T> ReadOnlyObjectProperty<T> adapt(StateProperty<T> source) {
+        ReadOnlyObjectWrapper<T> wrapper = new ReadOnlyObjectWrapper<>(source.get());
+        source.addListener(value -> {
+            if (Platform.isFxApplicationThread()) {
+                wrapper.set(value);
+            } else {
+                Platform.runLater(() -> wrapper.set(value));
+            }
+        });
+        return wrapper.getReadOnlyProperty();
+    }
+}
@@ -7,6 +7,7 @@ import deadlocktoolkit.core.DeadlockPrevention;
 import deadlocktoolkit.visualization.*;
 import deadlocktoolkit.ui.MonitoringPanel;
 import deadlocktoolkit.ui.BankersAlgorithmPanel;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -591,7 +592,9 @@ public class MainController {
     }
     
     private void resetSystem() {
+        engine.shutdown();
         engine = new DeadlockEngine();
+        engine.setMonitoringExecutor(Platform::runLater);
         visualSystem = new VisualizationSystem(engine);
         scenarioGenerator = new ScenarioGenerator(engine);
         initializeUI();
@@ -840,4 +843,11 @@ public class MainController {
     public BorderPane getMainView() {
         return mainView;
     }
+    
+    /**
+     * Releases the current engine's background threads.
+     */
+    public void shutdown() {
+        engine.shutdown();
+    }
 }
@@ -35,6 +35,7 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
     private VBox mainPanel;
     private Label statusLabel;
     private ProgressBar resourceUsageBar;
+    private Label resourceUsageLabel;
     private ListView<String> eventLogView;
     private ObservableList<String> eventLog;
     private PieChart deadlockChart;
@@ -99,9 +100,9 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
         statusTitleLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
         
         statusLabel = new Label("Initializing...");
-        statusLabel.textProperty().bind(tracker.systemStatusProperty());
+        statusLabel.textProperty().bind(FxProperties.adapt(tracker.systemStatusProperty()));
         statusLabel.styleProperty().bind(
-            Bindings.when(tracker.deadlockDetectedProperty())
+            Bindings.when(Bindings.equal(Boolean.TRUE, FxProperties.adapt(tracker.deadlockDetectedProperty())))
                 .then("-fx-text-fill: red; -fx-font-weight: bold;")
                 .otherwise("-fx-text-fill: green;")
         );
@@ -118,7 +119,9 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
         resourceUsageBar.setPrefWidth(200);
         resourceUsageBar.setStyle("-fx-accent: #3498db;");
         
-        resourceBox.getChildren().addAll(resourceLabel, resourceUsageBar);
+        resourceUsageLabel = new Label();
+        
+        resourceBox.getChildren().addAll(resourceLabel, resourceUsageBar, resourceUsageLabel);
         
         // Alert indicator
         HBox alertBox = new HBox(10);
@@ -224,7 +227,7 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
         monitoringToggle.setSelected(false);
         monitoringToggle.setOnAction(_ -> {
             if (monitoringToggle.isSelected()) {
-                engine.startMonitoring();
+                engine.startMonitoring(Platform::runLater);
                 monitoringToggle.setText("Stop Monitoring");
                 logEvent("Real-time monitoring started");
             } else {
@@ -305,26 +308,20 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
     }
     
     private void updateResourceUsage() {
-        // In a real implementation, this would calculate actual resource usage
-        // For demo purposes, we'll simulate resource usage based on system activity
-        double usage = 0.3; // base usage
-        
-        if (tracker.deadlockDetectedProperty().get()) {
-            usage += 0.4; // increase when deadlock detected
-        }
-        
-        if (engine.getPerformanceTracker().isMonitoringActive()) {
-            usage += 0.1; // increase when monitoring is active
+        ResourceUsage usage = engine.getResourceUsage();
+        if (usage == null) {
+            return;
         }
         
-        // Add some randomness
-        usage += Math.random() * 0.1;
-        
-        // Ensure it's between 0 and 1
-        usage = Math.min(1.0, Math.max(0.0, usage));
-        
-        final double finalUsage = usage;
-        Platform.runLater(() -> resourceUsageBar.setProgress(finalUsage));
+        // Fraction of all resource units allocated, as maintained by the engine
+        double current = usage.getUtilization();
+        String details = String.format("%.0f%% in use, %.0f%% average, %d waiting, %d contended",
+            current * 100, usage.getTimeWeightedUtilization() * 100,
+            usage.getTotalQueueDepth(), usage.getTotalContention());
+        Platform.runLater(() -> {
+            resourceUsageBar.setProgress(current);
+            resourceUsageLabel.setText(details);
+        });
     }
     
     private void setupAlertTimeline() {
@@ -358,14 +355,14 @@ public class MonitoringPanel implements DeadlockEngine.DeadlockListener {
     public void onDeadlockDetected(List<Integer> processes, DeadlockEvent event) {
         String processesStr = processes.toString();
         logEvent("DEADLOCK DETECTED involving processes " + processesStr);
-        alertActive.set(true);
+        Platform.runLater(() -> alertActive.set(true));
     }
     
     @Override
     public void onDeadlockResolved(List<Integer> processes, String strategy) {
         String processesStr = processes.toString();
         logEvent("Deadlock resolved using " + strategy + " for processes " + processesStr);
-        alertActive.set(false);
+        Platform.runLater(() -> alertActive.set(false));
     }
     
     public Pane getMainPanel() {
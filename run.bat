@@ -20,7 +20,7 @@ if %ERRORLEVEL% NEQ 0 (
 )
 
 echo Cleaning and packaging the application...
-call mvn clean package
+call mvn clean install
 
 if %ERRORLEVEL% NEQ 0 (
     echo Maven build failed. Please check the errors above.
@@ -30,6 +30,6 @@ if %ERRORLEVEL% NEQ 0 (
 
 echo.
 echo Running the application...
-call mvn javafx:run
+call mvn -f deadlock-ui\pom.xml javafx:run
 
 pause
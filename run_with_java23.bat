@@ -1,4 +1,4 @@
 @echo off
 echo Running DeadlockToolkit with Java 23...
-java -jar target\deadlock-toolkit-1.0-SNAPSHOT.jar
+java -jar deadlock-ui\target\deadlock-toolkit-1.0-SNAPSHOT.jar
 pause